@@ -0,0 +1,32 @@
+package org.jsoup.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ Runs the benchmarks with the GC profiler, so each result reports allocation rate ({@code gc.alloc.rate.norm} is bytes
+ allocated per operation) alongside throughput, and writes the results as JSON to {@code jmh-<commit>.json}, where
+ commit is the {@code commit} system property (e.g. {@code -Dcommit=$(git rev-parse --short HEAD)}). Compare the files
+ from two commits to track a change.
+ <p/>
+ Any JMH command line options are passed through, e.g. a benchmark name pattern, or {@code -f 1 -wi 1 -i 3} for a
+ quicker, rougher run.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        String commit = System.getProperty("commit", "local");
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-" + commit + ".json")
+                .build();
+        new Runner(options).run();
+    }
+}
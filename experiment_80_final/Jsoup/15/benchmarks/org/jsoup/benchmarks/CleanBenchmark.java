@@ -0,0 +1,70 @@
+package org.jsoup.benchmarks;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.safety.Cleaner;
+import org.jsoup.safety.Whitelist;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Cleans untrusted input against a whitelist: the document cleaner via {@link Jsoup#clean(String, String, Whitelist)},
+ the streaming cleaner, and validation of an already parsed document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CleanBenchmark {
+    @Param({Corpus.small, Corpus.medium, Corpus.malformed})
+    public String input;
+
+    @Param({"basic", "relaxed"})
+    public String whitelist;
+
+    private String html;
+    private Whitelist policy;
+    private Cleaner cleaner;
+    private Document dirty;
+    private StringBuilder out;
+
+    @Setup
+    public void setup() {
+        html = Corpus.get(input);
+        policy = "basic".equals(whitelist) ? Whitelist.basic() : Whitelist.relaxed();
+        cleaner = new Cleaner(policy.compile());
+        dirty = Jsoup.parseBodyFragment(html, "http://example.com/");
+        out = new StringBuilder(html.length());
+    }
+
+    @Benchmark
+    public String clean() {
+        return Jsoup.clean(html, "http://example.com/", policy);
+    }
+
+    @Benchmark
+    public StringBuilder cleanStream() throws IOException {
+        out.setLength(0);
+        cleaner.clean(html, "http://example.com/", out);
+        return out;
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return cleaner.isValid(dirty);
+    }
+}
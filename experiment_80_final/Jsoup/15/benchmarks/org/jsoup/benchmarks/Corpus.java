@@ -0,0 +1,269 @@
+package org.jsoup.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ A reproducible corpus of HTML inputs for the benchmarks. Each input is generated from a fixed seed, so the same bytes
+ are benchmarked on every machine and at every commit, with no files to check in or download.
+ <p/>
+ Inputs, by name:
+ <ul>
+ <li><b>small</b>: a user comment fragment, ~2KB
+ <li><b>medium</b>: an article page with head, navigation, tables and forms, ~200KB
+ <li><b>huge</b>: the same page shape with many more sections, ~8MB
+ <li><b>entities</b>: text and attributes dense with named and numeric character references, ~200KB
+ <li><b>nested</b>: elements nested 3000 deep
+ <li><b>malformed</b>: misnested, unclosed and stray tags, foster parented table content and broken attributes, ~200KB
+ </ul>
+ Run {@link #main} to write the inputs out for inspection.
+ */
+public final class Corpus {
+    public static final String small = "small";
+    public static final String medium = "medium";
+    public static final String huge = "huge";
+    public static final String entities = "entities";
+    public static final String nested = "nested";
+    public static final String malformed = "malformed";
+
+    static final String[] names = {small, medium, huge, entities, nested, malformed};
+
+    private static final long seed = 0x6a736f7570L;
+    private static final String[] words = {"lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing",
+            "elit", "sed", "do", "eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua",
+            "jsoup", "parser", "select", "element", "document", "node", "attribute", "whitelist", "cleaner"};
+    private static final String[] namedEntities = {"&amp;", "&lt;", "&gt;", "&quot;", "&nbsp;", "&copy;", "&reg;",
+            "&eacute;", "&uuml;", "&hellip;", "&mdash;", "&euro;", "&frac12;", "&alpha;", "&rarr;", "&amp"};
+
+    private static final Map<String, String> cache = new HashMap<String, String>();
+
+    private Corpus() {}
+
+    /**
+     Get an input by name.
+     @param name one of the corpus names, e.g. {@link #medium}
+     @return the HTML
+     */
+    public static synchronized String get(String name) {
+        String html = cache.get(name);
+        if (html == null) {
+            html = generate(name);
+            cache.put(name, html);
+        }
+        return html;
+    }
+
+    private static String generate(String name) {
+        Random rnd = new Random(seed);
+        if (small.equals(name))
+            return comment(rnd, 2 * 1024);
+        if (medium.equals(name))
+            return page(rnd, 200 * 1024);
+        if (huge.equals(name))
+            return page(rnd, 8 * 1024 * 1024);
+        if (entities.equals(name))
+            return entityText(rnd, 200 * 1024);
+        if (nested.equals(name))
+            return nestedTree(rnd, 3000);
+        if (malformed.equals(name))
+            return malformedPage(rnd, 200 * 1024);
+        throw new IllegalArgumentException("Unknown corpus input: " + name);
+    }
+
+    private static String comment(Random rnd, int size) {
+        StringBuilder sb = new StringBuilder(size + 256);
+        while (sb.length() < size) {
+            sb.append("<p>");
+            sentence(rnd, sb, 12);
+            sb.append(" <b>");
+            sentence(rnd, sb, 2);
+            sb.append("</b> <a href=\"http://example.com/").append(word(rnd)).append("\" onclick=\"track()\">");
+            sentence(rnd, sb, 3);
+            sb.append("</a><br><i>");
+            sentence(rnd, sb, 4);
+            sb.append("</i></p>\n");
+            if (rnd.nextInt(3) == 0) {
+                sb.append("<ul>");
+                for (int i = 0; i < 3; i++) {
+                    sb.append("<li>");
+                    sentence(rnd, sb, 5);
+                }
+                sb.append("</ul>\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String page(Random rnd, int size) {
+        StringBuilder sb = new StringBuilder(size + 4096);
+        sb.append("<!DOCTYPE html>\n<html lang=en><head><meta charset=utf-8><title>");
+        sentence(rnd, sb, 6);
+        sb.append("</title>\n<link rel=stylesheet href=/site.css><style>body { margin: 0 } .c1 > p { color: #333 }</style>\n");
+        sb.append("<script>var config = { tracking: true, items: [1, 2, 3] }; if (a < b && c > d) init();</script>\n");
+        sb.append("</head><body class=\"page article\">\n<div id=nav class=nav><ul>");
+        for (int i = 0; i < 20; i++)
+            sb.append("<li class=nav-item><a href=\"/section/").append(i).append("\">").append(word(rnd)).append("</a></li>");
+        sb.append("</ul></div>\n<div id=content class=\"main c1\">\n");
+
+        int section = 0;
+        while (sb.length() < size) {
+            section++;
+            sb.append("<div class=\"section c").append(section % 5).append("\" id=s").append(section)
+                    .append(" data-x=").append(section % 7).append(">\n<h2>");
+            sentence(rnd, sb, 5);
+            sb.append("</h2>\n");
+            for (int p = 0; p < 4; p++) {
+                sb.append("<p class=text>");
+                sentence(rnd, sb, 20);
+                sb.append(" <a href=\"http://example.com/").append(word(rnd)).append('/').append(section)
+                        .append("\" title=\"").append(word(rnd)).append("\">");
+                sentence(rnd, sb, 2);
+                sb.append("</a> <span class=em>");
+                sentence(rnd, sb, 3);
+                sb.append("</span>. ");
+                sentence(rnd, sb, 10);
+                sb.append("</p>\n");
+            }
+            if (section % 4 == 0) {
+                sb.append("<table class=data><thead><tr><th>Name<th>Value<th>Note</thead><tbody>\n");
+                for (int r = 0; r < 8; r++) {
+                    sb.append("<tr><td>").append(word(rnd)).append("</td><td>").append(rnd.nextInt(10000))
+                            .append("</td><td>");
+                    sentence(rnd, sb, 4);
+                    sb.append("</td></tr>\n");
+                }
+                sb.append("</tbody></table>\n");
+            }
+            if (section % 6 == 0) {
+                sb.append("<form action=/search method=post><input type=text name=q value=\"")
+                        .append(word(rnd)).append("\"><select name=s><option>one<option selected>two</select>")
+                        .append("<textarea name=t>").append(word(rnd)).append("</textarea><button>Go</button></form>\n");
+            }
+            if (section % 3 == 0)
+                sb.append("<img src=\"/img/").append(section).append(".png\" alt=\"").append(word(rnd)).append("\">\n");
+            sb.append("<!-- end section ").append(section).append(" -->\n</div>\n");
+        }
+        sb.append("</div>\n<div id=footer><p>&copy; 2012 jsoup</p></div>\n</body></html>\n");
+        return sb.toString();
+    }
+
+    private static String entityText(Random rnd, int size) {
+        StringBuilder sb = new StringBuilder(size + 256);
+        sb.append("<html><body>\n");
+        while (sb.length() < size) {
+            sb.append("<p title=\"").append(word(rnd)).append(namedEntities[rnd.nextInt(namedEntities.length)])
+                    .append(word(rnd)).append("\">");
+            for (int i = 0; i < 30; i++) {
+                sb.append(word(rnd));
+                switch (rnd.nextInt(4)) {
+                    case 0:
+                        sb.append(namedEntities[rnd.nextInt(namedEntities.length)]);
+                        break;
+                    case 1:
+                        sb.append("&#").append(160 + rnd.nextInt(8000)).append(';');
+                        break;
+                    case 2:
+                        sb.append("&#x").append(Integer.toHexString(0x100 + rnd.nextInt(0x2000))).append(';');
+                        break;
+                    default:
+                        sb.append(' ');
+                }
+            }
+            sb.append("</p>\n");
+        }
+        sb.append("</body></html>\n");
+        return sb.toString();
+    }
+
+    private static String nestedTree(Random rnd, int depth) {
+        String[] tags = {"div", "span", "b", "section", "em"};
+        StringBuilder sb = new StringBuilder(depth * 40);
+        sb.append("<html><body>");
+        for (int i = 0; i < depth; i++) {
+            sb.append('<').append(tags[i % tags.length]).append(" class=l").append(i % 10).append('>')
+                    .append(word(rnd)).append(' ');
+        }
+        for (int i = depth - 1; i >= 0; i--)
+            sb.append("</").append(tags[i % tags.length]).append('>');
+        sb.append("</body></html>");
+        return sb.toString();
+    }
+
+    private static String malformedPage(Random rnd, int size) {
+        StringBuilder sb = new StringBuilder(size + 256);
+        sb.append("<html><head><title>broken</title><body>\n");
+        while (sb.length() < size) {
+            switch (rnd.nextInt(8)) {
+                case 0: // misnested formatting
+                    sb.append("<b>").append(word(rnd)).append("<i>").append(word(rnd)).append("</b>")
+                            .append(word(rnd)).append("</i>\n");
+                    break;
+                case 1: // unclosed paragraphs and list items
+                    sb.append("<p>").append(word(rnd)).append("<p>").append(word(rnd)).append("<ul><li>")
+                            .append(word(rnd)).append("<li>").append(word(rnd)).append("</ul>\n");
+                    break;
+                case 2: // stray end tags
+                    sb.append("</div></span>").append(word(rnd)).append("</p></td>\n");
+                    break;
+                case 3: // text and elements misplaced in a table, to be foster parented
+                    sb.append("<table>").append(word(rnd)).append("<tr><td>").append(word(rnd))
+                            .append("<div>").append(word(rnd)).append("</table>\n");
+                    break;
+                case 4: // broken attributes
+                    sb.append("<a href=http://example.com/?a=1&b=2 title='").append(word(rnd))
+                            .append(" class=x class=y disabled =oops \"quoted\">").append(word(rnd)).append("</a>\n");
+                    break;
+                case 5: // block in formatting, formatting across blocks
+                    sb.append("<a href=#><div>").append(word(rnd)).append("</a>").append(word(rnd))
+                            .append("</div>\n");
+                    break;
+                case 6: // bogus comments and markup declarations
+                    sb.append("<!").append(word(rnd)).append("><? ").append(word(rnd)).append(" ?></ ")
+                            .append(word(rnd)).append(">\n");
+                    break;
+                default:
+                    sb.append("<span>");
+                    sentence(rnd, sb, 8);
+                    sb.append(" &amp &lt;tag&gt <").append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void sentence(Random rnd, StringBuilder sb, int length) {
+        for (int i = 0; i < length; i++) {
+            if (i > 0)
+                sb.append(' ');
+            sb.append(word(rnd));
+        }
+    }
+
+    private static String word(Random rnd) {
+        return words[rnd.nextInt(words.length)];
+    }
+
+    /**
+     Writes the corpus inputs to a directory, as {@code <name>.html}.
+     @param args the directory to write to; defaults to the working directory
+     @throws IOException if the files can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args.length > 0 ? args[0] : ".");
+        for (String name : names) {
+            File file = new File(dir, name + ".html");
+            Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            try {
+                writer.write(get(name));
+            } finally {
+                writer.close();
+            }
+            System.out.println(file + ": " + get(name).length() + " chars");
+        }
+    }
+}
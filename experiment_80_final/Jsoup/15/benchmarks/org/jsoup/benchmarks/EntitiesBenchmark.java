@@ -0,0 +1,54 @@
+package org.jsoup.benchmarks;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Entities;
+import org.jsoup.nodes.TextNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Escapes and unescapes character references in the entities input. Unescaping goes through
+ {@link TextNode#createFromEncoded(String, String)}, the public route to the decoder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EntitiesBenchmark {
+    @Param({"base", "extended"})
+    public String escapeMode;
+
+    private String encoded;
+    private String decoded;
+    private Document.OutputSettings settings;
+
+    @Setup
+    public void setup() {
+        encoded = Corpus.get(Corpus.entities);
+        decoded = TextNode.createFromEncoded(encoded, "").getWholeText();
+        settings = new Document.OutputSettings().escapeMode(Entities.EscapeMode.valueOf(escapeMode));
+    }
+
+    @Benchmark
+    public String escape() {
+        return Entities.escape(decoded, settings);
+    }
+
+    @Benchmark
+    public String unescape() {
+        return TextNode.createFromEncoded(encoded, "").getWholeText();
+    }
+}
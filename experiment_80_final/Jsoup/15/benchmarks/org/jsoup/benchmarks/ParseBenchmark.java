@@ -0,0 +1,43 @@
+package org.jsoup.benchmarks;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Parses each corpus input into a document, with {@link Jsoup#parse(String, String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseBenchmark {
+    @Param({Corpus.small, Corpus.medium, Corpus.huge, Corpus.entities, Corpus.nested, Corpus.malformed})
+    public String input;
+
+    private String html;
+
+    @Setup
+    public void setup() {
+        html = Corpus.get(input);
+    }
+
+    @Benchmark
+    public Document parse() {
+        return Jsoup.parse(html, "http://example.com/");
+    }
+}
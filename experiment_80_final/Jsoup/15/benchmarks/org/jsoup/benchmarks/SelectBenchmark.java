@@ -0,0 +1,49 @@
+package org.jsoup.benchmarks;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.select.Elements;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Runs common selector shapes against the medium page, with and without the document's element index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SelectBenchmark {
+    @Param({"p", "#s40", ".em", "div p", "div > p", "a[href]", "[data-x=3]", "[href^=http]", "tr:eq(2)",
+            "p:contains(jsoup)", "div.section h2, table td"})
+    public String query;
+
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    private Document doc;
+
+    @Setup
+    public void setup() {
+        doc = Jsoup.parse(Corpus.get(Corpus.medium), "http://example.com/");
+        doc.indexed(indexed);
+    }
+
+    @Benchmark
+    public Elements select() {
+        return doc.select(query);
+    }
+}
@@ -0,0 +1,56 @@
+package org.jsoup.benchmarks;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Serialises a parsed document back to HTML, to a String and to a Writer, with and without pretty printing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SerialiseBenchmark {
+    @Param({Corpus.small, Corpus.medium, Corpus.entities, Corpus.nested})
+    public String input;
+
+    @Param({"true", "false"})
+    public boolean prettyPrint;
+
+    private Document doc;
+
+    @Setup
+    public void setup() {
+        doc = Jsoup.parse(Corpus.get(input), "http://example.com/");
+        doc.outputSettings().prettyPrint(prettyPrint);
+    }
+
+    @Benchmark
+    public String outerHtml() {
+        return doc.outerHtml();
+    }
+
+    @Benchmark
+    public StringWriter outerHtmlWriter() throws IOException {
+        StringWriter writer = new StringWriter();
+        doc.outerHtml(writer);
+        return writer;
+    }
+}
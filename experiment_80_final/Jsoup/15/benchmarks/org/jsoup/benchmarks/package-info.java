@@ -0,0 +1,15 @@
+/**
+ JMH benchmarks for the parser, selectors, cleaner, entity codec and serialiser, over a reproducible generated
+ {@link org.jsoup.benchmarks.Corpus corpus}.
+ <p/>
+ These sources are kept apart from the library, as they need JMH to compile. To build, compile them with the jsoup
+ classes, {@code jmh-core} and {@code jmh-generator-annprocess} on the classpath (the annotation processor generates the
+ benchmark harness, and {@code META-INF/BenchmarkList}):
+ <pre>
+ javac -cp jsoup.jar:jmh-core.jar:jmh-generator-annprocess.jar -d target $(find benchmarks -name '*.java')
+ java -cp jsoup.jar:jmh-core.jar:jopt-simple.jar:commons-math3.jar:target -Dcommit=$(git rev-parse --short HEAD) \
+     org.jsoup.benchmarks.BenchmarkRunner [jmh options]
+ </pre>
+ See {@link org.jsoup.benchmarks.BenchmarkRunner} for the reported metrics.
+ */
+package org.jsoup.benchmarks;
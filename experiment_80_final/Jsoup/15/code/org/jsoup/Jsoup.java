@@ -181,6 +181,23 @@ public class Jsoup {
         return clean(bodyHtml, "", whitelist);
     }
 
+    /**
+     Write safe HTML from untrusted input HTML to an output, filtering the input through a white-list of permitted tags
+     and attributes as it is parsed, without building a document.
+
+     @param bodyHtml  input untrusted HTML
+     @param baseUri   URL to resolve relative URLs against
+     @param whitelist white-list of permitted HTML elements
+     @param out       sink to write the safe HTML to
+     @throws IOException if the sink throws an exception on append
+
+     @see Cleaner#clean(String, String, Appendable)
+     */
+    public static void clean(String bodyHtml, String baseUri, Whitelist whitelist, Appendable out) throws IOException {
+        Cleaner cleaner = new Cleaner(whitelist);
+        cleaner.clean(bodyHtml, baseUri, out);
+    }
+
     /**
      Test if the input HTML has only tags and attributes allowed by the Whitelist. Useful for form validation. The input HTML should
      still be run through the cleaner to set up enforced attributes, and to tidy the output.
@@ -0,0 +1,23 @@
+package org.jsoup;
+
+import java.io.IOException;
+
+/**
+ * Wraps an {@link IOException} that occurred while reading input from inside the parser, which does not otherwise
+ * declare checked exceptions.
+ */
+public class UncheckedIOException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedIOException(IOException cause) {
+        super(cause);
+    }
+
+    /**
+     * Get the underlying IOException.
+     * @return the IOException that was wrapped
+     */
+    public IOException ioException() {
+        return (IOException) getCause();
+    }
+}
@@ -1,14 +1,20 @@
 package org.jsoup.helper;
 
 import org.jsoup.Jsoup;
+import org.jsoup.UncheckedIOException;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
 
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -20,6 +26,8 @@ public class DataUtil {
     private static final Pattern charsetPattern = Pattern.compile("(?i)\\bcharset=\\s*\"?([^\\s;\"]*)");
     static final String defaultCharset = "UTF-8"; // used if not found in header or meta charset
     private static final int bufferSize = 0x20000; // ~130K.
+    private static final int charsetPrescanLength = 1024 * 5; // leading bytes to prescan for a charset
+    private static final AtomicLong charsetReparses = new AtomicLong();
 
     private DataUtil() {}
 
@@ -44,7 +52,9 @@ public class DataUtil {
     }
 
     /**
-     * Parses a Document from an input steam.
+     * Parses a Document from an input steam. If the character set is known, or is found by prescanning the leading
+     * bytes for a BOM or meta charset, the stream is decoded and parsed incrementally, without first reading it all
+     * into memory.
      * @param in input stream to parse. You will need to close it.
      * @param charsetName character set of input
      * @param baseUri base URI of document, to resolve relative links against
@@ -52,15 +62,43 @@ public class DataUtil {
      * @throws IOException on IO error
      */
     public static Document load(InputStream in, String charsetName, String baseUri) throws IOException {
+        if (charsetName == null) { // if the prescan finds the charset, can still stream
+            in = new BufferedInputStream(in, charsetPrescanLength);
+            in.mark(charsetPrescanLength);
+            ByteBuffer leading = readToByteBuffer(in, charsetPrescanLength);
+            in.reset();
+            charsetName = prescanCharset(leading);
+            if (charsetName != null && leading.position() > 0)
+                in.skip(leading.position()); // BOM
+        }
+        if (charsetName != null)
+            return streamParse(in, charsetName, baseUri);
         ByteBuffer byteData = readToByteBuffer(in);
         return parseByteData(byteData, charsetName, baseUri);
     }
 
-    // reads bytes first into a buffer, then decodes with the appropriate charset. done this way to support
-    // switching the chartset midstream when a meta http-equiv tag defines the charset.
+    // charset known up front, so no need to buffer the bytes in case of a switch
+    static Document streamParse(InputStream in, String charsetName, String baseUri) throws IOException {
+        Validate.notEmpty(charsetName, "Must set charset arg to character set of file to parse. Set to null to attempt to detect from HTML");
+        Reader reader = new InputStreamReader(in, Charset.forName(charsetName));
+        Document doc;
+        try {
+            doc = Parser.parse(reader, baseUri);
+        } catch (UncheckedIOException e) {
+            throw e.ioException();
+        }
+        doc.outputSettings().charset(charsetName);
+        return doc;
+    }
+
+    // reads bytes first into a buffer, then decodes with the appropriate charset. the charset is prescanned from a
+    // BOM or meta tag in the leading bytes; if not found there, a meta tag found later in the parsed doc can still
+    // switch the charset, which needs a second decode and parse.
     static Document parseByteData(ByteBuffer byteData, String charsetName, String baseUri) {
         String docData;
         Document doc = null;
+        if (charsetName == null) // try to determine from a BOM or meta in the leading bytes
+            charsetName = prescanCharset(byteData);
         if (charsetName == null) { // determine from meta. safe parse as UTF-8
             // look for <meta http-equiv="Content-Type" content="text/html;charset=gb2312"> or HTML5 <meta charset="gb2312">
             docData = Charset.forName(defaultCharset).decode(byteData).toString();
@@ -73,9 +111,10 @@ public class DataUtil {
                     byteData.rewind();
                     docData = Charset.forName(foundCharset).decode(byteData).toString();
                     doc = null;
+                    charsetReparses.incrementAndGet();
                 }
             }
-        } else { // specified by content type header (or by user on file load)
+        } else { // specified by content type header (or by user on file load), or found by prescan
             Validate.notEmpty(charsetName, "Must set charset arg to character set of file to parse. Set to null to attempt to detect from HTML");
             docData = Charset.forName(charsetName).decode(byteData).toString();
         }
@@ -86,6 +125,220 @@ public class DataUtil {
         return doc;
     }
 
+    /**
+     * Get the number of documents that had to be decoded and parsed a second time, because their charset was declared
+     * in a meta tag beyond the prescanned leading bytes.
+     * @return count of charset reparses since startup
+     */
+    public static long charsetReparseCount() {
+        return charsetReparses.get();
+    }
+
+    /**
+     * Prescans the leading bytes of the data for a byte order mark, or a meta tag declaring the charset, following the
+     * HTML5 encoding prescan algorithm. If a BOM is found, the buffer's position is moved past it.
+     * @param byteData data to scan, from its current position
+     * @return the supported charset name found, or null if none found
+     */
+    static String prescanCharset(ByteBuffer byteData) {
+        int start = byteData.position();
+        int remaining = byteData.remaining();
+        if (remaining >= 3 && (byteData.get(start) & 0xFF) == 0xEF && (byteData.get(start + 1) & 0xFF) == 0xBB
+                && (byteData.get(start + 2) & 0xFF) == 0xBF) {
+            byteData.position(start + 3);
+            return "UTF-8";
+        }
+        if (remaining >= 2) {
+            int first = byteData.get(start) & 0xFF;
+            int second = byteData.get(start + 1) & 0xFF;
+            if (first == 0xFE && second == 0xFF) {
+                byteData.position(start + 2);
+                return "UTF-16BE";
+            } else if (first == 0xFF && second == 0xFE) {
+                byteData.position(start + 2);
+                return "UTF-16LE";
+            }
+        }
+        return new CharsetPrescan(byteData, start, Math.min(remaining, charsetPrescanLength)).scan();
+    }
+
+    // the meta prescan. bytes are treated as ASCII, as for all ASCII compatible charsets
+    private static class CharsetPrescan {
+        private final ByteBuffer bytes;
+        private final int end;
+        private int pos;
+
+        CharsetPrescan(ByteBuffer bytes, int start, int length) {
+            this.bytes = bytes;
+            this.pos = start;
+            this.end = start + length;
+        }
+
+        String scan() {
+            while (pos < end) {
+                if (matches("<!--")) {
+                    if (!skipPast("-->", pos + 2)) // -- may be shared: <!-->
+                        return null;
+                } else if (matchesIgnoreCase("<meta") && pos + 5 < end && isSpaceOrSlash(at(pos + 5))) {
+                    pos += 6;
+                    String charset = scanMeta();
+                    if (charset != null)
+                        return charset;
+                } else if (at(pos) == '<' && (isLetter(at(pos + 1)) || (at(pos + 1) == '/' && isLetter(at(pos + 2))))) {
+                    while (pos < end && !isWhitespace(at(pos)) && at(pos) != '>')
+                        pos++;
+                    while (nextAttribute() != null) {
+                        // skip attributes of other tags
+                    }
+                } else if (matches("<!") || matches("</") || matches("<?")) {
+                    if (!skipPast(">", pos))
+                        return null;
+                } else {
+                    pos++;
+                }
+            }
+            return null;
+        }
+
+        // reads the attributes of a meta tag, returning a supported charset if it declares one
+        private String scanMeta() {
+            List<String> seen = new ArrayList<String>();
+            boolean gotPragma = false;
+            Boolean needPragma = null;
+            String charset = null;
+
+            String[] attribute;
+            while ((attribute = nextAttribute()) != null) {
+                String name = attribute[0];
+                if (seen.contains(name))
+                    continue;
+                seen.add(name);
+                if (name.equals("http-equiv")) {
+                    if (attribute[1].equalsIgnoreCase("content-type"))
+                        gotPragma = true;
+                } else if (name.equals("content")) {
+                    if (charset == null) {
+                        String found = getCharsetFromContentType(attribute[1]);
+                        if (found != null && found.length() != 0) {
+                            charset = found;
+                            needPragma = true;
+                        }
+                    }
+                } else if (name.equals("charset")) {
+                    charset = attribute[1].trim();
+                    needPragma = false;
+                }
+            }
+
+            if (needPragma == null || (needPragma && !gotPragma) || charset == null || charset.length() == 0)
+                return null;
+            charset = charset.toUpperCase();
+            if (charset.startsWith("UTF-16")) // the bytes were readable as ASCII, so can't be UTF-16
+                charset = "UTF-8";
+            try {
+                return Charset.isSupported(charset) ? charset : null;
+            } catch (IllegalCharsetNameException e) {
+                return null;
+            }
+        }
+
+        // returns {name, value}, or null if the end of the tag (or scan) was reached
+        private String[] nextAttribute() {
+            while (pos < end && (isWhitespace(at(pos)) || at(pos) == '/'))
+                pos++;
+            if (pos >= end || at(pos) == '>')
+                return null;
+
+            StringBuilder name = new StringBuilder();
+            while (pos < end) {
+                char c = at(pos);
+                if ((c == '=' && name.length() > 0) || isWhitespace(c) || c == '/' || c == '>')
+                    break;
+                name.append(Character.toLowerCase(c));
+                pos++;
+            }
+            while (pos < end && isWhitespace(at(pos)))
+                pos++;
+            if (pos >= end || at(pos) != '=')
+                return new String[]{name.toString(), ""};
+
+            pos++; // =
+            while (pos < end && isWhitespace(at(pos)))
+                pos++;
+            StringBuilder value = new StringBuilder();
+            if (pos < end && (at(pos) == '"' || at(pos) == '\'')) {
+                char quote = at(pos++);
+                while (pos < end && at(pos) != quote)
+                    value.append(at(pos++));
+                pos++;
+            } else {
+                while (pos < end && !isWhitespace(at(pos)) && at(pos) != '>')
+                    value.append(at(pos++));
+            }
+            return new String[]{name.toString(), value.toString()};
+        }
+
+        private boolean skipPast(String seq, int from) {
+            for (int i = from; i + seq.length() <= end; i++) {
+                if (matchesAt(seq, i, false)) {
+                    pos = i + seq.length();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matches(String seq) {
+            return matchesAt(seq, pos, false);
+        }
+
+        private boolean matchesIgnoreCase(String seq) {
+            return matchesAt(seq, pos, true);
+        }
+
+        private boolean matchesAt(String seq, int offset, boolean ignoreCase) {
+            if (offset + seq.length() > end)
+                return false;
+            for (int i = 0; i < seq.length(); i++) {
+                char c = at(offset + i);
+                if (ignoreCase)
+                    c = Character.toLowerCase(c);
+                if (c != seq.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+
+        private char at(int index) {
+            return index < end ? (char) (bytes.get(index) & 0xFF) : 0;
+        }
+
+        private static boolean isWhitespace(char c) {
+            return c == '\t' || c == '\n' || c == '\f' || c == '\r' || c == ' ';
+        }
+
+        private static boolean isSpaceOrSlash(char c) {
+            return isWhitespace(c) || c == '/';
+        }
+
+        private static boolean isLetter(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+    }
+
+    // reads at most maxSize bytes, for prescanning
+    static ByteBuffer readToByteBuffer(InputStream inStream, int maxSize) throws IOException {
+        byte[] buffer = new byte[maxSize];
+        int length = 0;
+        int read;
+        while (length < maxSize) {
+            read = inStream.read(buffer, length, maxSize - length);
+            if (read == -1) break;
+            length += read;
+        }
+        return ByteBuffer.wrap(buffer, 0, length);
+    }
+
     static ByteBuffer readToByteBuffer(InputStream inStream) throws IOException {
         byte[] buffer = new byte[bufferSize];
         ByteArrayOutputStream outStream = new ByteArrayOutputStream(bufferSize);
@@ -0,0 +1,668 @@
+package org.jsoup.helper;
+
+import org.jsoup.Connection;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A reusable HTTP client, that keeps connections to each host open between requests, and limits the number of
+ * concurrent connections to each host. Use one client for many requests, e.g. to crawl many pages per host:
+ * <p/>
+ * <code>HttpClient client = new HttpClient().maxConnectionsPerHost(2);<br/>
+ * Document doc = client.connect("http://example.com/").get();</code>
+ * <p/>
+ * Connections made by the client are configured and executed as any other {@link Connection}. A client is thread
+ * safe; each Connection it creates is for use by one thread. Connections are HTTP/1.1 with keep-alive, directly to the
+ * host (system proxy settings are not used). The client counts connections {@link #connectionsOpened() opened} and
+ * {@link #connectionsReused() reused}, to check that reuse is effective.
+ * <p/>
+ * If a GET fails on a reused connection (as the server may close an idle connection at any time), it is retried once
+ * on a new connection. A POST is not retried, as the server may have acted on it.
+ * <p/>
+ * {@link #close() Close} the client when done, to close its idle connections.
+ */
+public class HttpClient {
+    private static final int maxLineLength = 64 * 1024; // of a status or header line
+    private static final String defaultAccept = "text/html, image/gif, image/jpeg, *; q=.2, */*; q=.2"; // as HttpURLConnection
+    private static final String defaultUserAgent = "Java/" + System.getProperty("java.version");
+
+    private int maxConnectionsPerHost = 4;
+    private int idleTimeoutMillis = 30 * 1000;
+    private volatile boolean closed = false;
+    private final ConcurrentHashMap<String, Host> hosts = new ConcurrentHashMap<String, Host>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    /**
+     * Create a new client.
+     */
+    public HttpClient() {}
+
+    /**
+     * Create a new Connection, that executes through this client.
+     * @param url URL to connect to. The protocol must be {@code http} or {@code https}.
+     * @return the connection
+     */
+    public Connection connect(String url) {
+        return HttpConnection.connect(url, this);
+    }
+
+    /**
+     * Create a new Connection, that executes through this client.
+     * @param url URL to connect to. The protocol must be {@code http} or {@code https}.
+     * @return the connection
+     */
+    public Connection connect(URL url) {
+        return HttpConnection.connect(url, this);
+    }
+
+    /**
+     * Set the maximum number of concurrent connections to each host (scheme, host and port). A request to a host that
+     * is at the limit waits for a connection to be released, for up to the request's timeout. Default is 4. Set before
+     * the client is used.
+     * @param max maximum connections per host
+     * @return this client, for chaining
+     */
+    public HttpClient maxConnectionsPerHost(int max) {
+        Validate.isTrue(max > 0, "Max connections per host must be positive");
+        this.maxConnectionsPerHost = max;
+        return this;
+    }
+
+    /**
+     * Set how long an idle connection is kept open for reuse. Default is 30 seconds.
+     * @param millis idle timeout in milliseconds; 0 to not keep connections open
+     * @return this client, for chaining
+     */
+    public HttpClient idleTimeout(int millis) {
+        Validate.isTrue(millis >= 0, "Idle timeout must be >= 0");
+        this.idleTimeoutMillis = millis;
+        return this;
+    }
+
+    /**
+     * Get the number of requests executed (including each request of a redirect).
+     * @return requests executed
+     */
+    public long requestsExecuted() {
+        return requests.get();
+    }
+
+    /**
+     * Get the number of new connections opened.
+     * @return connections opened
+     */
+    public long connectionsOpened() {
+        return opened.get();
+    }
+
+    /**
+     * Get the number of requests that reused an open connection.
+     * @return connections reused
+     */
+    public long connectionsReused() {
+        return reused.get();
+    }
+
+    /**
+     * Close the client's idle connections. Connections in use are closed when released. The client can't be used after
+     * it is closed.
+     */
+    public void close() {
+        closed = true;
+        for (Host host : hosts.values())
+            host.closeIdle();
+    }
+
+    /**
+     * Send a request, and read the response status and headers. The returned exchange holds a connection (and a
+     * permit to the host) until it is closed.
+     */
+    Exchange exchange(Connection.Request req) throws IOException {
+        Validate.isFalse(closed, "Client is closed");
+        URL url = req.url();
+        Host host = host(url);
+        host.acquire(req.timeout());
+
+        boolean acquired = true;
+        try {
+            byte[] body = req.method() == Connection.Method.POST ? HttpConnection.Response.postBody(req.data()) : null;
+            byte[] head = requestHead(req, body);
+            requests.incrementAndGet();
+
+            HostConnection conn = host.takeIdle(idleTimeoutMillis);
+            if (conn != null) {
+                try {
+                    Exchange exchange = send(conn, host, req, head, body);
+                    reused.incrementAndGet();
+                    acquired = false; // now held by the exchange
+                    return exchange;
+                } catch (IOException e) {
+                    conn.close(); // server has likely closed the idle connection; retry on a new one if safe to repeat
+                    if (!isIdempotent(req.method()))
+                        throw e;
+                }
+            }
+
+            conn = open(url, req.timeout());
+            opened.incrementAndGet();
+            try {
+                Exchange exchange = send(conn, host, req, head, body);
+                acquired = false;
+                return exchange;
+            } catch (IOException e) {
+                conn.close();
+                throw e;
+            }
+        } finally {
+            if (acquired)
+                host.permits.release();
+        }
+    }
+
+    private static boolean isIdempotent(Connection.Method method) {
+        return method == Connection.Method.GET;
+    }
+
+    private Host host(URL url) {
+        String key = url.getProtocol() + "://" + url.getHost().toLowerCase() + ":" + port(url);
+        Host host = hosts.get(key);
+        if (host == null) {
+            Host created = new Host(maxConnectionsPerHost);
+            host = hosts.putIfAbsent(key, created);
+            if (host == null)
+                host = created;
+        }
+        return host;
+    }
+
+    private static int port(URL url) {
+        return url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+    }
+
+    private static HostConnection open(URL url, int timeout) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(url.getHost(), port(url)), timeout);
+            if (url.getProtocol().equals("https")) {
+                SSLSocketFactory factory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+                SSLSocket ssl = (SSLSocket) factory.createSocket(socket, url.getHost(), port(url), true);
+                socket = ssl;
+                ssl.setSoTimeout(timeout);
+                ssl.startHandshake();
+                verifyHost(ssl, url.getHost());
+            }
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        return new HostConnection(socket);
+    }
+
+    // checks that the server's certificate is for the host (the handshake checks only that it is trusted)
+    private static void verifyHost(SSLSocket ssl, String host) throws IOException {
+        Certificate[] certs = ssl.getSession().getPeerCertificates();
+        boolean matches = certs.length > 0 && certs[0] instanceof X509Certificate &&
+                certificateMatches((X509Certificate) certs[0], host);
+        if (!matches)
+            throw new SSLPeerUnverifiedException("Certificate does not match host " + host);
+    }
+
+    // as RFC 2818: the host must match a DNS (or IP) subject alternative name if there are any; else the common name
+    static boolean certificateMatches(X509Certificate cert, String host) {
+        host = host.toLowerCase();
+        if (host.startsWith("[") && host.endsWith("]"))
+            host = host.substring(1, host.length() - 1); // an IPv6 address, as in a URL
+        boolean ip = isIpAddress(host);
+        boolean hasDnsName = false;
+        Collection<List<?>> altNames;
+        try {
+            altNames = cert.getSubjectAlternativeNames();
+        } catch (CertificateParsingException e) {
+            return false;
+        }
+        if (altNames != null) {
+            for (List<?> altName : altNames) {
+                int type = (Integer) altName.get(0);
+                Object name = altName.get(1);
+                if (!(name instanceof String))
+                    continue;
+                if (type == 2 && !ip) { // dNSName
+                    hasDnsName = true;
+                    if (hostMatches(host, (String) name))
+                        return true;
+                } else if (type == 7 && ip && sameAddress(host, (String) name)) { // iPAddress
+                    return true;
+                }
+            }
+        }
+        if (ip || hasDnsName)
+            return false;
+        String commonName = commonName(cert);
+        return commonName != null && hostMatches(host, commonName);
+    }
+
+    // if the host matches the certificate name, which may have a wildcard as its whole first label (*.example.com)
+    static boolean hostMatches(String host, String name) {
+        name = name.toLowerCase();
+        if (!name.startsWith("*."))
+            return host.equals(name);
+        String suffix = name.substring(1); // .example.com
+        int labelEnd = host.length() - suffix.length();
+        return suffix.indexOf('.', 1) != -1 && labelEnd > 0 && host.endsWith(suffix) &&
+                host.lastIndexOf('.', labelEnd - 1) == -1;
+    }
+
+    private static boolean isIpAddress(String host) {
+        if (host.indexOf(':') != -1)
+            return true; // IPv6
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if (c != '.' && (c < '0' || c > '9'))
+                return false;
+        }
+        return host.length() > 0;
+    }
+
+    private static boolean sameAddress(String host, String address) {
+        try { // address literals, so not looked up
+            return InetAddress.getByName(host).equals(InetAddress.getByName(address));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // the most specific common name (CN) in the certificate's subject; or null
+    private static String commonName(X509Certificate cert) {
+        try {
+            LdapName subject = new LdapName(cert.getSubjectX500Principal().getName());
+            String commonName = null;
+            for (Rdn rdn : subject.getRdns()) { // least specific first
+                if (rdn.getType().equalsIgnoreCase("CN"))
+                    commonName = rdn.getValue().toString();
+            }
+            return commonName;
+        } catch (InvalidNameException e) {
+            return null;
+        }
+    }
+
+    private Exchange send(HostConnection conn, Host host, Connection.Request req, byte[] head, byte[] body)
+            throws IOException {
+        conn.socket.setSoTimeout(req.timeout());
+        conn.out.write(head);
+        if (body != null)
+            conn.out.write(body);
+        conn.out.flush();
+        return readResponse(conn, host);
+    }
+
+    // the request line and headers
+    private static byte[] requestHead(Connection.Request req, byte[] body) {
+        URL url = req.url();
+        String path = url.getFile().length() > 0 ? url.getFile() : "/";
+        StringBuilder head = new StringBuilder(256);
+        head.append(req.method().name()).append(' ').append(path).append(" HTTP/1.1\r\n");
+        appendHeader(head, "Host", url.getPort() == -1 ? url.getHost() : url.getHost() + ":" + url.getPort());
+        for (Map.Entry<String, String> header : req.headers().entrySet())
+            appendHeader(head, header.getKey(), header.getValue());
+        if (req.cookies().size() > 0)
+            appendHeader(head, "Cookie", HttpConnection.Response.getRequestCookieString(req));
+        if (!req.hasHeader("User-Agent"))
+            appendHeader(head, "User-Agent", defaultUserAgent);
+        if (!req.hasHeader("Accept"))
+            appendHeader(head, "Accept", defaultAccept);
+        if (body != null) {
+            if (!req.hasHeader("Content-Type"))
+                appendHeader(head, "Content-Type", "application/x-www-form-urlencoded");
+            appendHeader(head, "Content-Length", String.valueOf(body.length));
+        }
+        head.append("\r\n");
+        try {
+            return head.toString().getBytes("ISO-8859-1");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e); // ISO-8859-1 is always supported
+        }
+    }
+
+    private static void appendHeader(StringBuilder head, String name, String value) {
+        Validate.isFalse(containsLineBreak(name) || containsLineBreak(value), "Header must not contain line breaks");
+        head.append(name).append(": ").append(value).append("\r\n");
+    }
+
+    private static boolean containsLineBreak(String s) {
+        return s.indexOf('\r') != -1 || s.indexOf('\n') != -1;
+    }
+
+    private Exchange readResponse(HostConnection conn, Host host) throws IOException {
+        String statusLine;
+        String[] parts;
+        int status;
+        Map<String, List<String>> headers;
+        do { // skips interim 1xx responses
+            statusLine = readLine(conn.in);
+            if (statusLine == null)
+                throw new EOFException("Connection closed before response");
+            parts = statusLine.split(" ", 3); // HTTP/1.1 200 OK
+            if (parts.length < 2 || !parts[0].startsWith("HTTP/"))
+                throw new IOException("Invalid HTTP status line: " + statusLine);
+            try {
+                status = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid HTTP status line: " + statusLine);
+            }
+            headers = readHeaders(conn.in);
+        } while (status >= 100 && status < 200);
+        String message = parts.length > 2 ? parts[2] : "";
+
+        String connection = firstHeader(headers, "Connection");
+        boolean keepAlive = parts[0].equals("HTTP/1.1") ?
+                !"close".equalsIgnoreCase(connection) : "keep-alive".equalsIgnoreCase(connection);
+        String transferEncoding = firstHeader(headers, "Transfer-Encoding");
+        String contentLength = firstHeader(headers, "Content-Length");
+
+        InputStream body;
+        if (status == 204 || status == 304) {
+            body = new LengthInputStream(conn.in, 0);
+        } else if (transferEncoding != null && transferEncoding.toLowerCase().contains("chunked")) {
+            body = new ChunkedInputStream(conn.in);
+        } else if (contentLength != null) {
+            try {
+                body = new LengthInputStream(conn.in, Long.parseLong(contentLength.trim()));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid Content-Length: " + contentLength);
+            }
+        } else {
+            body = conn.in; // read to the end of the connection
+            keepAlive = false;
+        }
+        return new Exchange(this, host, conn, status, message, headers, body, keepAlive);
+    }
+
+    private static Map<String, List<String>> readHeaders(InputStream in) throws IOException {
+        Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+        String line;
+        while ((line = readLine(in)) != null && line.length() > 0) {
+            int colon = line.indexOf(':');
+            if (colon <= 0)
+                continue; // malformed; ignore
+            String name = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+            List<String> values = null;
+            for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(name)) {
+                    values = entry.getValue();
+                    break;
+                }
+            }
+            if (values == null) {
+                values = new ArrayList<String>(1);
+                headers.put(name, values);
+            }
+            values.add(value);
+        }
+        return headers;
+    }
+
+    private static String firstHeader(Map<String, List<String>> headers, String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name))
+                return entry.getValue().get(0);
+        }
+        return null;
+    }
+
+    // reads a CRLF (or LF) terminated line, as ISO-8859-1; null at the end of the stream
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                int len = line.length();
+                if (len > 0 && line.charAt(len - 1) == '\r')
+                    line.setLength(len - 1);
+                return line.toString();
+            }
+            if (line.length() >= maxLineLength)
+                throw new IOException("HTTP header line too long");
+            line.append((char) b);
+        }
+        return line.length() > 0 ? line.toString() : null;
+    }
+
+    // an open connection to a host
+    private static class HostConnection {
+        final Socket socket;
+        final InputStream in;
+        final OutputStream out;
+        long idleSince;
+
+        HostConnection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // already unusable
+            }
+        }
+    }
+
+    // the connections to one host: a limit on those in use, and a pool of idle ones
+    private static class Host {
+        final Semaphore permits;
+        private final LinkedList<HostConnection> idle = new LinkedList<HostConnection>(); // most recent last
+
+        Host(int maxConnections) {
+            permits = new Semaphore(maxConnections, true);
+        }
+
+        void acquire(int timeout) throws IOException {
+            try {
+                if (timeout == 0)
+                    permits.acquire();
+                else if (!permits.tryAcquire(timeout, TimeUnit.MILLISECONDS))
+                    throw new IOException("Timed out waiting for a connection to the host");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a connection to the host");
+            }
+        }
+
+        // the most recently used idle connection; expired ones are closed
+        HostConnection takeIdle(int idleTimeout) {
+            long now = System.currentTimeMillis();
+            synchronized (idle) {
+                while (!idle.isEmpty()) {
+                    HostConnection conn = idle.removeLast();
+                    if (now - conn.idleSince < idleTimeout && !conn.socket.isClosed())
+                        return conn;
+                    conn.close();
+                }
+            }
+            return null;
+        }
+
+        void returnIdle(HostConnection conn) {
+            conn.idleSince = System.currentTimeMillis();
+            synchronized (idle) {
+                idle.addLast(conn);
+            }
+        }
+
+        void closeIdle() {
+            synchronized (idle) {
+                for (Iterator<HostConnection> it = idle.iterator(); it.hasNext(); ) {
+                    it.next().close();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * A request sent on a connection, and its response status, headers, and body stream. Closing the exchange releases
+     * the connection: back to the host's pool if the body was fully read and the connection can be kept alive; else
+     * closed.
+     */
+    static class Exchange implements Closeable {
+        private final HttpClient client;
+        private final Host host;
+        private final HostConnection conn;
+        final int status;
+        final String message;
+        final Map<String, List<String>> headers;
+        final InputStream body;
+        private final boolean keepAlive;
+        private boolean released = false;
+
+        Exchange(HttpClient client, Host host, HostConnection conn, int status, String message,
+                 Map<String, List<String>> headers, InputStream body, boolean keepAlive) {
+            this.client = client;
+            this.host = host;
+            this.conn = conn;
+            this.status = status;
+            this.message = message;
+            this.headers = headers;
+            this.body = body;
+            this.keepAlive = keepAlive;
+        }
+
+        String header(String name) {
+            return firstHeader(headers, name);
+        }
+
+        public void close() {
+            if (released)
+                return;
+            released = true;
+            boolean complete = body instanceof LengthInputStream ? ((LengthInputStream) body).remaining == 0 :
+                    body instanceof ChunkedInputStream && ((ChunkedInputStream) body).complete;
+            if (keepAlive && complete && client.idleTimeoutMillis > 0 && !client.closed)
+                host.returnIdle(conn);
+            else
+                conn.close();
+            host.permits.release();
+        }
+    }
+
+    // a body of known length; does not close the connection
+    private static class LengthInputStream extends InputStream {
+        private final InputStream in;
+        long remaining;
+
+        LengthInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0)
+                return -1;
+            int b = in.read();
+            if (b == -1)
+                throw new EOFException("Connection closed before end of response body");
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining == 0)
+                return -1;
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read == -1)
+                throw new EOFException("Connection closed before end of response body");
+            remaining -= read;
+            return read;
+        }
+
+        @Override
+        public void close() {} // the exchange releases the connection
+    }
+
+    // a chunked transfer encoded body; does not close the connection
+    private static class ChunkedInputStream extends InputStream {
+        private final InputStream in;
+        private long chunkRemaining = 0;
+        boolean complete = false;
+
+        ChunkedInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (complete)
+                return -1;
+            if (chunkRemaining == 0 && !nextChunk())
+                return -1;
+            int read = in.read(b, off, (int) Math.min(len, chunkRemaining));
+            if (read == -1)
+                throw new EOFException("Connection closed before end of response body");
+            chunkRemaining -= read;
+            if (chunkRemaining == 0)
+                readLine(in); // the CRLF after the chunk data
+            return read;
+        }
+
+        // reads the next chunk's size; false (and reads the trailer) if it was the last chunk
+        private boolean nextChunk() throws IOException {
+            String line = readLine(in);
+            if (line == null)
+                throw new EOFException("Connection closed before end of response body");
+            int ext = line.indexOf(';');
+            String size = (ext != -1 ? line.substring(0, ext) : line).trim();
+            try {
+                chunkRemaining = Long.parseLong(size, 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid chunk size: " + line);
+            }
+            if (chunkRemaining == 0) {
+                readHeaders(in); // trailer
+                complete = true;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {} // the exchange releases the connection
+    }
+}
@@ -31,8 +31,23 @@ public class HttpConnection implements Connection {
         return con;
     }
 
+    static Connection connect(String url, HttpClient client) {
+        HttpConnection con = new HttpConnection();
+        con.client = client;
+        con.url(url);
+        return con;
+    }
+
+    static Connection connect(URL url, HttpClient client) {
+        HttpConnection con = new HttpConnection();
+        con.client = client;
+        con.url(url);
+        return con;
+    }
+
     private Connection.Request req;
     private Connection.Response res;
+    private HttpClient client; // if set, requests are executed through it (reusing connections); else direct
 
 	private HttpConnection() {
         req = new Request();
@@ -140,7 +155,7 @@ public class HttpConnection implements Connection {
     }
 
     public Connection.Response execute() throws IOException {
-        res = Response.execute(req);
+        res = client != null ? Response.execute(req, client) : Response.execute(req);
         return res;
     }
 
@@ -361,7 +376,7 @@ public class HttpConnection implements Connection {
         }
 
         static Response execute(Connection.Request req) throws IOException {
-            return execute(req, null);
+            return execute(req, (Response) null);
         }
 
         static Response execute(Connection.Request req, Response previousResponse) throws IOException {
@@ -416,6 +431,55 @@ public class HttpConnection implements Connection {
             return res;
         }
 
+        // executes through the client. redirects are followed in a loop, each on a pooled connection
+        static Response execute(Connection.Request req, HttpClient client) throws IOException {
+            Validate.notNull(req, "Request must not be null");
+            String protocol = req.url().getProtocol();
+            Validate
+                .isTrue(protocol.equals("http") || protocol.equals("https"), "Only http & https protocols supported");
+
+            if (req.method() == Connection.Method.GET && req.data().size() > 0)
+                serialiseRequestUrl(req); // appends query string
+
+            Response previousResponse = null;
+            while (true) {
+                Response res = new Response(previousResponse);
+                HttpClient.Exchange exchange = client.exchange(req);
+                try {
+                    int status = exchange.status;
+                    boolean needsRedirect = false;
+                    if (status != HttpURLConnection.HTTP_OK) {
+                        if (status == HttpURLConnection.HTTP_MOVED_TEMP || status == HttpURLConnection.HTTP_MOVED_PERM || status == HttpURLConnection.HTTP_SEE_OTHER)
+                            needsRedirect = true;
+                        else if (!req.ignoreHttpErrors())
+                            throw new IOException(status + " error loading URL " + req.url().toString());
+                    }
+                    res.setup(req.method(), req.url(), status, exchange.message, exchange.header("Content-Type"),
+                        exchange.headers, previousResponse);
+                    if (needsRedirect && req.followRedirects()) {
+                        DataUtil.readToByteBuffer(exchange.body); // drain, so the connection can be reused
+                        req.url(new URL(req.url(), res.header("Location")));
+                        for (Map.Entry<String, String> cookie : res.cookies.entrySet()) { // add response cookies to request (for e.g. login posts)
+                            req.cookie(cookie.getKey(), cookie.getValue());
+                        }
+                        previousResponse = res;
+                        continue;
+                    }
+                    res.req = req;
+
+                    InputStream bodyStream = res.hasHeader("Content-Encoding") && res.header("Content-Encoding").equalsIgnoreCase("gzip") ?
+                        new BufferedInputStream(new GZIPInputStream(exchange.body)) :
+                        exchange.body;
+                    res.byteData = DataUtil.readToByteBuffer(bodyStream);
+                    res.charset = DataUtil.getCharsetFromContentType(res.contentType); // may be null, readInputStream deals with it
+                    res.executed = true;
+                    return res;
+                } finally {
+                    exchange.close();
+                }
+            }
+        }
+
         public int statusCode() {
             return statusCode;
         }
@@ -479,13 +543,18 @@ public class HttpConnection implements Connection {
 
         // set up url, method, header, cookies
         private void setupFromConnection(HttpURLConnection conn, Connection.Response previousResponse) throws IOException {
-            method = Connection.Method.valueOf(conn.getRequestMethod());
-            url = conn.getURL();
-            statusCode = conn.getResponseCode();
-            statusMessage = conn.getResponseMessage();
-            contentType = conn.getContentType();
+            setup(Connection.Method.valueOf(conn.getRequestMethod()), conn.getURL(), conn.getResponseCode(),
+                conn.getResponseMessage(), conn.getContentType(), conn.getHeaderFields(), previousResponse);
+        }
+
+        private void setup(Connection.Method method, URL url, int statusCode, String statusMessage, String contentType,
+                           Map<String, List<String>> resHeaders, Connection.Response previousResponse) {
+            this.method = method;
+            this.url = url;
+            this.statusCode = statusCode;
+            this.statusMessage = statusMessage;
+            this.contentType = contentType;
 
-            Map<String, List<String>> resHeaders = conn.getHeaderFields();
             processResponseHeaders(resHeaders);
 
             // if from a redirect, map previous response cookies into this response
@@ -525,6 +594,12 @@ public class HttpConnection implements Connection {
             }
         }
 
+        static byte[] postBody(Collection<Connection.KeyVal> data) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            writePost(data, body);
+            return body.toByteArray();
+        }
+
         private static void writePost(Collection<Connection.KeyVal> data, OutputStream outputStream) throws IOException {
             OutputStreamWriter w = new OutputStreamWriter(outputStream, DataUtil.defaultCharset);
             boolean first = true;
@@ -541,7 +616,7 @@ public class HttpConnection implements Connection {
             w.close();
         }
         
-        private static String getRequestCookieString(Connection.Request req) {
+        static String getRequestCookieString(Connection.Request req) {
             StringBuilder sb = new StringBuilder();
             boolean first = true;
             for (Map.Entry<String, String> cookie : req.cookies().entrySet()) {
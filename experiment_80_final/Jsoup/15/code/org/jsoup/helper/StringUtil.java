@@ -1,5 +1,7 @@
 package org.jsoup.helper;
 
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.Collection;
 import java.util.Iterator;
 
@@ -101,8 +103,9 @@ public final class StringUtil {
         boolean modified = false;
 
         int l = string.length();
-        for (int i = 0; i < l; i++) {
+        for (int i = 0; i < l; ) {
             int c = string.codePointAt(i);
+            i += Character.charCount(c); // a surrogate pair is one code point
             if (Character.isWhitespace(c)) {
                 if (lastWasWhite) {
                     modified = true;
@@ -128,4 +131,42 @@ public final class StringUtil {
         }
         return false;
     }
+
+    /**
+     * Create a new absolute URL, from a provided existing absolute URL and a relative URL component.
+     * @param baseUrl the existing absolute base URL; if it doesn't parse as a URL, the relative URL must be absolute
+     * @param relUrl the relative URL to resolve. (If it's already absolute, it will be returned)
+     * @return the resolved absolute URL, or an empty string if one could not be made
+     */
+    public static String resolve(String baseUrl, String relUrl) {
+        URL base;
+        try {
+            base = new URL(baseUrl);
+        } catch (MalformedURLException e) {
+            // the base is unsuitable, but the relative URL may be abs on its own, so try that
+            try {
+                return new URL(relUrl).toExternalForm();
+            } catch (MalformedURLException e1) {
+                return "";
+            }
+        }
+        return resolve(base, relUrl);
+    }
+
+    /**
+     * Create a new absolute URL, from a provided existing absolute URL and a relative URL component.
+     * @param base the existing absolute base URL
+     * @param relUrl the relative URL to resolve. (If it's already absolute, it will be returned)
+     * @return the resolved absolute URL, or an empty string if one could not be made
+     */
+    public static String resolve(URL base, String relUrl) {
+        try {
+            // workaround: java resolves '//path/file + ?foo' to '//path/?foo', not '//path/file?foo' as desired
+            if (relUrl.startsWith("?"))
+                relUrl = base.getPath() + relUrl;
+            return new URL(base, relUrl).toExternalForm();
+        } catch (MalformedURLException e) {
+            return "";
+        }
+    }
 }
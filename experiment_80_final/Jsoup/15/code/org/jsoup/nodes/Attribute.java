@@ -2,6 +2,7 @@ package org.jsoup.nodes;
 
 import org.jsoup.helper.Validate;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -11,6 +12,7 @@ import java.util.Map;
 public class Attribute implements Map.Entry<String, String>, Cloneable  {
     private String key;
     private String value;
+    private Attributes parent; // the set this is a view of, that a value set is written through to; or null
 
     /**
      * Create a new attribute from unencoded (raw) key and value.
@@ -25,6 +27,18 @@ public class Attribute implements Map.Entry<String, String>, Cloneable  {
         this.value = value;
     }
 
+    // a view of an attribute in a set, with a normalised key
+    Attribute(String key, String value, Attributes parent) {
+        this.key = key;
+        this.value = value;
+        this.parent = parent;
+    }
+
+    // makes this a view of the set, that a value set is written through to. set when this is put into the set
+    void setParent(Attributes parent) {
+        this.parent = parent;
+    }
+
     /**
      Get the attribute key.
      @return the attribute key
@@ -56,6 +70,8 @@ public class Attribute implements Map.Entry<String, String>, Cloneable  {
      */
     public String setValue(String value) {
         Validate.notNull(value);
+        if (parent != null)
+            parent.setValue(key, value);
         String old = this.value;
         this.value = value;
         return old;
@@ -69,12 +85,16 @@ public class Attribute implements Map.Entry<String, String>, Cloneable  {
         return key + "=\"" + Entities.escape(value, (new Document("")).outputSettings()) + "\"";
     }
     
-    protected void html(StringBuilder accum, Document.OutputSettings out) {
+    protected void html(Appendable accum, Document.OutputSettings out) throws IOException {
+        html(key, value, accum, out);
+    }
+
+    static void html(String key, String value, Appendable accum, Document.OutputSettings out) throws IOException {
         accum
             .append(key)
-            .append("=\"")
-            .append(Entities.escape(value, out))
-            .append("\"");
+            .append("=\"");
+        Entities.escape(accum, value, out);
+        accum.append("\"");
     }
 
     /**
@@ -97,7 +117,7 @@ public class Attribute implements Map.Entry<String, String>, Cloneable  {
     }
 
     protected boolean isDataAttribute() {
-        return key.startsWith(Attributes.dataPrefix) && key.length() > Attributes.dataPrefix.length();
+        return Attributes.isDataKey(key);
     }
 
     @Override
@@ -123,7 +143,9 @@ public class Attribute implements Map.Entry<String, String>, Cloneable  {
     @Override
     public Attribute clone() {
         try {
-            return (Attribute) super.clone(); // only fields are immutable strings key and value, so no more deep copy reqd
+            Attribute clone = (Attribute) super.clone(); // fields are immutable strings key and value, so no deep copy reqd
+            clone.parent = null; // a clone is detached from the set
+            return clone;
         } catch (CloneNotSupportedException e) {
             throw new RuntimeException(e);
         }
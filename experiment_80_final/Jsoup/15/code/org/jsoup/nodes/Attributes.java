@@ -1,7 +1,9 @@
 package org.jsoup.nodes;
 
+import org.jsoup.UncheckedIOException;
 import org.jsoup.helper.Validate;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -16,10 +18,15 @@ import java.util.*;
  */
 public class Attributes implements Iterable<Attribute>, Cloneable {
     protected static final String dataPrefix = "data-";
+    private static final String[] empty = {};
     
-    private LinkedHashMap<String, Attribute> attributes = null;
-    // linked hash map to preserve insertion order.
-    // null be default as so many elements have no attributes -- saves a good chunk of memory
+    // keys and values in parallel arrays, in insertion order. keys are normalised. looked up by a linear scan, which
+    // beats hashing for the few attributes an element has, and avoids a map entry and Attribute object per attribute.
+    // the arrays are shared empty by default as so many elements have no attributes -- saves a good chunk of memory
+    private String[] keys = empty;
+    private String[] vals = empty;
+    private int size = 0;
+    Node owner; // the node these are the attributes of, while it is in an indexed document's tree; else null
 
     /**
      Get an attribute value by key.
@@ -30,11 +37,8 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
     public String get(String key) {
         Validate.notEmpty(key);
 
-        if (attributes == null)
-            return "";
-
-        Attribute attr = attributes.get(key.toLowerCase());
-        return attr != null ? attr.getValue() : "";
+        int i = indexOfKey(key.toLowerCase());
+        return i >= 0 ? vals[i] : "";
     }
 
     /**
@@ -43,19 +47,37 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
      @param value attribute value
      */
     public void put(String key, String value) {
-        Attribute attr = new Attribute(key, value);
-        put(attr);
+        Validate.notEmpty(key);
+        Validate.notNull(value);
+        putNormalised(key.trim().toLowerCase(), value); // normalised as Attribute
     }
 
     /**
-     Set a new attribute, or replace an existing one by key.
+     Set a new attribute, or replace an existing one by key. The attribute becomes a view of this set, so setting its
+     value later also sets it here, while the key is present.
      @param attribute attribute
      */
     public void put(Attribute attribute) {
         Validate.notNull(attribute);
-        if (attributes == null)
-             attributes = new LinkedHashMap<String, Attribute>(2);
-        attributes.put(attribute.getKey(), attribute);
+        putNormalised(attribute.getKey(), attribute.getValue());
+        attribute.setParent(this);
+    }
+
+    private void putNormalised(String key, String value) {
+        changing(key);
+        int i = indexOfKey(key);
+        if (i >= 0) { // replaced in place, keeping the original order
+            vals[i] = value;
+            return;
+        }
+        if (size == keys.length) {
+            int capacity = size == 0 ? 2 : size * 2;
+            keys = copyOf(keys, capacity);
+            vals = copyOf(vals, capacity);
+        }
+        keys[size] = key;
+        vals[size] = value;
+        size++;
     }
 
     /**
@@ -64,9 +86,22 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
      */
     public void remove(String key) {
         Validate.notEmpty(key);
-        if (attributes == null)
+        String normalised = key.toLowerCase();
+        changing(normalised);
+        removeAt(indexOfKey(normalised));
+    }
+
+    private void removeAt(int i) {
+        if (i < 0)
             return;
-        attributes.remove(key.toLowerCase());
+        int shift = size - i - 1;
+        if (shift > 0) {
+            System.arraycopy(keys, i + 1, keys, i, shift);
+            System.arraycopy(vals, i + 1, vals, i, shift);
+        }
+        size--;
+        keys[size] = null; // release for gc
+        vals[size] = null;
     }
 
     /**
@@ -75,7 +110,24 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
      @return true if key exists, false otherwise
      */
     public boolean hasKey(String key) {
-        return attributes != null && attributes.containsKey(key.toLowerCase());
+        return size > 0 && indexOfKey(key.toLowerCase()) >= 0;
+    }
+
+    // index of the normalised key; or -1 if not present
+    private int indexOfKey(String key) {
+        for (int i = 0; i < size; i++) {
+            if (key.equals(keys[i]))
+                return i;
+        }
+        return -1;
+    }
+
+    // sets the value of the attribute with this key, if still present. used by Attribute.setValue to write through
+    void setValue(String key, String value) {
+        changing(key);
+        int i = indexOfKey(key);
+        if (i >= 0)
+            vals[i] = value;
     }
 
     /**
@@ -83,21 +135,55 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
      @return size
      */
     public int size() {
-        if (attributes == null)
-            return 0;
-        return attributes.size();
+        return size;
     }
 
     /**
-     Add all the attributes from the incoming set to this set.
+     Add all the attributes from the incoming set to this set. The values are copied; the incoming set's attribute
+     objects remain views of that set.
      @param incoming attributes to add to these attributes.
      */
     public void addAll(Attributes incoming) {
-        if (incoming.size() == 0)
+        if (incoming.size == 0)
             return;
-        if (attributes == null)
-            attributes = new LinkedHashMap<String, Attribute>(incoming.size());
-        attributes.putAll(incoming.attributes);
+        checkMutable();
+        if (keys.length < size + incoming.size) {
+            keys = copyOf(keys, size + incoming.size);
+            vals = copyOf(vals, size + incoming.size);
+        }
+        for (int i = 0; i < incoming.size; i++)
+            putNormalised(incoming.keys[i], incoming.vals[i]);
+    }
+
+    // throws if these attributes can't be modified
+    void checkMutable() {}
+
+    // called before a change to the attribute with this normalised key. the owner's document, if indexed, drops its
+    // index on an id or class change, as it does for changes made through the node
+    private void changing(String key) {
+        checkMutable();
+        if (owner != null && (key.equals("id") || key.equals("class")))
+            owner.invalidateIndex();
+    }
+
+    /**
+     Get a read-only copy of these attributes, with storage trimmed to size. Used to freeze a document.
+     */
+    Attributes frozen() {
+        Attributes frozen = new Frozen();
+        if (size > 0) {
+            frozen.keys = copyOf(keys, size);
+            frozen.vals = copyOf(vals, size);
+            frozen.size = size;
+        }
+        frozen.owner = owner;
+        return frozen;
+    }
+
+    private static String[] copyOf(String[] orig, int length) {
+        String[] copy = new String[length];
+        System.arraycopy(orig, 0, copy, 0, Math.min(orig.length, length));
+        return copy;
     }
     
     public Iterator<Attribute> iterator() {
@@ -106,17 +192,16 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
 
     /**
      Get the attributes as a List, for iteration. Do not modify the keys of the attributes via this view, as changes
-     to keys will not be recognised in the containing set.
+     to keys will not be recognised in the containing set. Values set via this view are set in the containing set.
      @return an view of the attributes as a List.
      */
     public List<Attribute> asList() {
-        if (attributes == null)
+        if (size == 0)
             return Collections.emptyList();
 
-        List<Attribute> list = new ArrayList<Attribute>(attributes.size());
-        for (Map.Entry<String, Attribute> entry : attributes.entrySet()) {
-            list.add(entry.getValue());
-        }
+        List<Attribute> list = new ArrayList<Attribute>(size);
+        for (int i = 0; i < size; i++)
+            list.add(new Attribute(keys[i], vals[i], this));
         return Collections.unmodifiableList(list);
     }
 
@@ -135,18 +220,18 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
      */
     public String html() {
         StringBuilder accum = new StringBuilder();
-        html(accum, (new Document("")).outputSettings()); // output settings a bit funky, but this html() seldom used
+        try {
+            html(accum, (new Document("")).outputSettings()); // output settings a bit funky, but this html() seldom used
+        } catch (IOException e) { // not thrown by StringBuilder
+            throw new UncheckedIOException(e);
+        }
         return accum.toString();
     }
     
-    void html(StringBuilder accum, Document.OutputSettings out) {
-        if (attributes == null)
-            return;
-        
-        for (Map.Entry<String, Attribute> entry : attributes.entrySet()) {
-            Attribute attribute = entry.getValue();
+    void html(Appendable accum, Document.OutputSettings out) throws IOException {
+        for (int i = 0; i < size; i++) {
             accum.append(" ");
-            attribute.html(accum, out);
+            Attribute.html(keys[i], vals[i], accum, out);
         }
     }
     
@@ -161,40 +246,46 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
         
         Attributes that = (Attributes) o;
         
-        if (attributes != null ? !attributes.equals(that.attributes) : that.attributes != null) return false;
+        if (size != that.size) return false;
+        for (int i = 0; i < size; i++) { // order independent, as map equality
+            int j = that.indexOfKey(keys[i]);
+            if (j < 0 || !vals[i].equals(that.vals[j])) return false;
+        }
         
         return true;
     }
     
     @Override
     public int hashCode() {
-        return attributes != null ? attributes.hashCode() : 0;
+        int hash = 0; // as the hash of the map of keys to Attributes this used to hold, so order independent
+        for (int i = 0; i < size; i++) {
+            int keyHash = keys[i].hashCode();
+            hash += keyHash ^ (31 * keyHash + vals[i].hashCode());
+        }
+        return hash;
     }
 
     @Override
     public Attributes clone() {
-        if (attributes == null)
-            return new Attributes();
-
         Attributes clone;
         try {
             clone = (Attributes) super.clone();
         } catch (CloneNotSupportedException e) {
             throw new RuntimeException(e);
         }
-        clone.attributes = new LinkedHashMap<String, Attribute>(attributes.size());
-        for (Attribute attribute: this)
-            clone.attributes.put(attribute.getKey(), attribute.clone());
+        clone.owner = null; // a clone isn't in the owner's tree
+        if (size == 0) {
+            clone.keys = empty;
+            clone.vals = empty;
+        } else {
+            clone.keys = copyOf(keys, size);
+            clone.vals = copyOf(vals, size);
+        }
         return clone;
     }
 
     private class Dataset extends AbstractMap<String, String> {
 
-        private Dataset() {
-            if (attributes == null)
-                attributes = new LinkedHashMap<String, Attribute>(2);
-        }
-
         public Set<Entry<String, String>> entrySet() {
             return new EntrySet();
         }
@@ -202,9 +293,8 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
         @Override
         public String put(String key, String value) {
             String dataKey = dataKey(key);
-            String oldValue = hasKey(dataKey) ? attributes.get(dataKey).getValue() : null;
-            Attribute attr = new Attribute(dataKey, value);
-            attributes.put(dataKey, attr);
+            String oldValue = hasKey(dataKey) ? Attributes.this.get(dataKey) : null;
+            Attributes.this.put(dataKey, value);
             return oldValue;
         }
 
@@ -216,33 +306,61 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
             public int size() {
                 int count = 0;
                 Iterator iter = new DatasetIterator();
-                while (iter.hasNext())
+                while (iter.hasNext()) {
+                    iter.next();
                     count++;
+                }
                 return count;
             }
         }
 
         private class DatasetIterator implements Iterator<Map.Entry<String, String>> {
-            private Iterator<Attribute> attrIter = attributes.values().iterator();
-            private Attribute attr;
+            private int next = 0; // index of the next attribute to check
+            private int current = -1; // index of the last attribute returned
+            
             public boolean hasNext() {
-                while (attrIter.hasNext()) {
-                    attr = attrIter.next();
-                    if (attr.isDataAttribute()) return true;
+                while (next < size) {
+                    if (isDataKey(keys[next])) return true;
+                    next++;
                 }
                 return false;
             }
 
             public Entry<String, String> next() {
-                return new Attribute(attr.getKey().substring(dataPrefix.length()), attr.getValue());
+                if (!hasNext()) throw new NoSuchElementException();
+                current = next++;
+                return new Attribute(keys[current].substring(dataPrefix.length()), vals[current]);
             }
 
             public void remove() {
-                attributes.remove(attr.getKey());
+                Validate.isTrue(current >= 0, "next() must be called before remove()");
+                changing(keys[current]);
+                removeAt(current);
+                next = current; // the following attributes have shifted down
+                current = -1;
             }
         }
     }
 
+    // attributes of a frozen document
+    private static class Frozen extends Attributes {
+        @Override
+        void checkMutable() {
+            throw new UnsupportedOperationException("Attributes of a frozen Document can not be modified");
+        }
+
+        @Override
+        public Attributes clone() { // a clone is modifiable
+            Attributes clone = new Attributes();
+            clone.addAll(this);
+            return clone;
+        }
+    }
+
+    static boolean isDataKey(String key) {
+        return key.startsWith(dataPrefix) && key.length() > dataPrefix.length();
+    }
+
     private static String dataKey(String key) {
         return dataPrefix + key;
     }
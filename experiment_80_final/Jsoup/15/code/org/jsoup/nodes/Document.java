@@ -2,8 +2,13 @@ package org.jsoup.nodes;
 
 import org.jsoup.helper.Validate;
 import org.jsoup.parser.Tag;
+import org.jsoup.select.Collector;
 import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
 
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.util.ArrayList;
@@ -16,6 +21,9 @@ import java.util.List;
 public class Document extends Element {
     private OutputSettings outputSettings = new OutputSettings();
     private QuirksMode quirksMode = QuirksMode.noQuirks;
+    private boolean indexed = false;
+    private volatile ElementIndex index; // built on the first indexed lookup; dropped when the tree changes
+    private volatile boolean frozen = false;
 
     /**
      Create a new, empty Document.
@@ -173,11 +181,139 @@ public class Document extends Element {
         return null;
     }
 
+    /**
+     * Get if element lookups by id, tag name and class name use an index. Default is false.
+     * @return if lookups are indexed
+     * @see #indexed(boolean)
+     */
+    public boolean indexed() {
+        return indexed;
+    }
+
+    /**
+     * Set if element lookups by id, tag name and class name on this document use an index. When enabled, the first such
+     * lookup ({@link #getElementById(String)}, {@link #getElementsByTag(String)}, {@link #getElementsByClass(String)},
+     * {@link #getElementsById(String)}, or a {@link #select(String)} of a single {@code #id}, {@code tag} or {@code .class}) indexes the document's
+     * elements, and later lookups are answered from the index instead of by traversing the document. Use for
+     * repeated lookups on a document that is not changing.
+     * <p>
+     * The index is dropped on any change to the tree or to an element's id, class or tag name (including changes made
+     * directly to an element's {@link #attributes()}), and rebuilt on the next lookup.
+     * @param indexed true to index lookups
+     * @return this document, for chaining
+     */
+    public Document indexed(boolean indexed) {
+        checkNotFrozen();
+        if (indexed != this.indexed) {
+            this.indexed = indexed;
+            index = null;
+            markIndexedTree(this, indexed); // so changes to this tree are checked with this document, and others aren't
+        }
+        return this;
+    }
+
+    // called before a change to the tree
+    void treeChanged() {
+        checkNotFrozen();
+        index = null;
+    }
+
+    void checkNotFrozen() {
+        if (frozen)
+            throw new UnsupportedOperationException("A frozen Document can not be modified");
+    }
+
+    /**
+     * Freeze this document, making it read-only so that it can be queried from many threads at once. Node storage is
+     * trimmed to size, and the document is {@link #indexed(boolean) indexed}, with the index built on the first lookup;
+     * {@link #select(String)} and the other read methods of the document and its nodes need no synchronisation.
+     * <p>
+     * Any change to the tree, to a node's attributes or text, or to the index setting, then throws an {@link
+     * UnsupportedOperationException}. The document's {@link #outputSettings()} are not frozen; set them before
+     * freezing, and don't change them while the document is being shared. A {@link #clone()} of a frozen document is
+     * not frozen, so can be modified.
+     * <p>
+     * Share the frozen document with other threads by safe publication, e.g. through a concurrent map or a final field.
+     * @return this document, for chaining
+     */
+    public Document freeze() {
+        if (frozen)
+            return this;
+        new NodeTraversor(new NodeVisitor() {
+            public void head(Node node, int depth) {
+                node.freezeNode();
+            }
+
+            public void tail(Node node, int depth) {}
+        }).traverse(this);
+        indexed(true);
+        frozen = true;
+        return this;
+    }
+
+    /**
+     * Get if this document is frozen, and so can't be modified.
+     * @return true if frozen
+     * @see #freeze()
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    // the element index, built if needed; or null if not indexed
+    private ElementIndex index() {
+        if (!indexed)
+            return null;
+        ElementIndex index = this.index;
+        if (index == null) { // a frozen document's readers may race to build it; each builds the same, complete index
+            index = new ElementIndex(this);
+            this.index = index;
+        }
+        return index;
+    }
+
+    @Override
+    public Element getElementById(String id) {
+        Validate.notEmpty(id);
+        ElementIndex index = index();
+        return index != null ? index.getFirstById(id) : super.getElementById(id);
+    }
+
+    /**
+     * Find all elements with this ID. IDs should be unique within a document, but not all documents comply.
+     * @param id the ID to search for
+     * @return elements with the ID, in document order; empty if none
+     */
+    public Elements getElementsById(String id) {
+        Validate.notEmpty(id);
+        ElementIndex index = index();
+        return index != null ? index.getById(id) : Collector.collect(new Evaluator.Id(id), this);
+    }
+
+    @Override
+    public Elements getElementsByTag(String tagName) {
+        Validate.notEmpty(tagName);
+        ElementIndex index = index();
+        return index != null ? index.getByTag(tagName.toLowerCase().trim()) : super.getElementsByTag(tagName);
+    }
+
+    @Override
+    public Elements getElementsByClass(String className) {
+        Validate.notEmpty(className);
+        ElementIndex index = index();
+        return index != null ? index.getByClass(className) : super.getElementsByClass(className);
+    }
+
     @Override
     public String outerHtml() {
         return super.html(); // no outer wrapper tag
     }
 
+    @Override
+    public void outerHtml(Appendable appendable) throws IOException {
+        super.html(appendable); // no outer wrapper tag
+    }
+
     /**
      Set the text of the {@code body} of this document. Any existing nodes within the body will be cleared.
      @param text unencoded text
@@ -198,6 +334,10 @@ public class Document extends Element {
     public Document clone() {
         Document clone = (Document) super.clone();
         clone.outputSettings = this.outputSettings.clone();
+        clone.index = null;
+        clone.frozen = false;
+        if (clone.indexed)
+            markIndexedTree(clone, true);
         return clone;
     }
 
@@ -208,6 +348,7 @@ public class Document extends Element {
         private Entities.EscapeMode escapeMode = Entities.EscapeMode.base;
         private Charset charset = Charset.forName("UTF-8");
         private CharsetEncoder charsetEncoder = charset.newEncoder();
+        private Entities.CoreCharset coreCharset = Entities.CoreCharset.utf;
         private boolean prettyPrint = true;
         private int indentAmount = 1;
 
@@ -256,6 +397,7 @@ public class Document extends Element {
             // todo: this should probably update the doc's meta charset
             this.charset = charset;
             charsetEncoder = charset.newEncoder();
+            coreCharset = Entities.CoreCharset.byName(charset.name());
             return this;
         }
 
@@ -273,6 +415,10 @@ public class Document extends Element {
             return charsetEncoder;
         }
 
+        Entities.CoreCharset coreCharset() {
+            return coreCharset;
+        }
+
         /**
          * Get if pretty printing is enabled. Default is true. If disabled, the HTML output methods will not re-format
          * the output, and the output will generally look like the input.
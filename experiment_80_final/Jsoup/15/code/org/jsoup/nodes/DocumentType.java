@@ -2,6 +2,8 @@ package org.jsoup.nodes;
 
 import org.jsoup.helper.StringUtil;
 
+import java.io.IOException;
+
 /**
  * A {@code <!DOCTPYE>} node.
  */
@@ -29,7 +31,7 @@ public class DocumentType extends Node {
     }
 
     @Override
-    void outerHtmlHead(StringBuilder accum, int depth, Document.OutputSettings out) {
+    void outerHtmlHead(Appendable accum, int depth, Document.OutputSettings out) throws IOException {
         accum.append("<!DOCTYPE html");
         if (!StringUtil.isBlank(attr("publicId")))
             accum.append(" PUBLIC \"").append(attr("publicId")).append("\"");
@@ -39,6 +41,6 @@ public class DocumentType extends Node {
     }
 
     @Override
-    void outerHtmlTail(StringBuilder accum, int depth, Document.OutputSettings out) {
+    void outerHtmlTail(Appendable accum, int depth, Document.OutputSettings out) throws IOException {
     }
 }
@@ -9,6 +9,7 @@ import org.jsoup.select.Elements;
 import org.jsoup.select.Evaluator;
 import org.jsoup.select.Selector;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -23,7 +24,9 @@ import java.util.regex.PatternSyntaxException;
  */
 public class Element extends Node {
     private Tag tag;
-    private Set<String> classNames;
+    private volatile Set<String> classNames; // memoised; volatile so safely published to concurrent readers
+    private volatile List<Element> childElements; // memoised element children; null when child nodes change
+    private int elementIndex; // position in the parent's childElements, when that is set
     
     /**
      * Create a new, standalone Element. (Standalone in that is has no parent.)
@@ -76,6 +79,7 @@ public class Element extends Node {
      */
     public Element tagName(String tagName) {
         Validate.notEmpty(tagName, "Tag name must not be empty.");
+        invalidateIndex();
         tag = Tag.valueOf(tagName);
         return this;
     }
@@ -171,7 +175,7 @@ public class Element extends Node {
      * @see #childNode(int)
      */
     public Element child(int index) {
-        return children().get(index);
+        return childElements().get(index);
     }
 
     /**
@@ -183,13 +187,31 @@ public class Element extends Node {
      * @see #childNodes()
      */
     public Elements children() {
-        // create on the fly rather than maintaining two lists. if gets slow, memoize, and mark dirty on change
-        List<Element> elements = new ArrayList<Element>();
-        for (Node node : childNodes) {
-            if (node instanceof Element)
-                elements.add((Element) node);
+        return new Elements(new ArrayList<Element>(childElements()));
+    }
+
+    // the element children, memoised until the child nodes change. each child's elementIndex is set to its position,
+    // so sibling navigation is constant time
+    private List<Element> childElements() {
+        List<Element> elements = childElements;
+        if (elements == null) {
+            elements = new ArrayList<Element>();
+            for (Node node : childNodes) {
+                if (node instanceof Element) {
+                    Element el = (Element) node;
+                    el.elementIndex = elements.size();
+                    elements.add(el);
+                }
+            }
+            elements = Collections.unmodifiableList(elements);
+            childElements = elements;
         }
-        return new Elements(elements);
+        return elements;
+    }
+
+    @Override
+    void childNodesChanged() {
+        childElements = null;
     }
 
     /**
@@ -212,6 +234,31 @@ public class Element extends Node {
     public Elements select(String query) {
         return Selector.select(query, this);
     }
+
+    /**
+     * Find the first element that matches the {@link Selector} query, with this element as the starting context. The
+     * search stops at the first match, so is quicker than {@code select(query).first()}.
+     *
+     * @param query a {@link Selector} query
+     * @return the first matching element (this element, or a descendant, in document order); or null if none match
+     * @see #select(String)
+     */
+    public Element selectFirst(String query) {
+        return Selector.selectFirst(query, this);
+    }
+
+    /**
+     * Iterate the elements that match the {@link Selector} query, with this element as the starting context. Matches
+     * are found as the iterator advances, rather than all collected up front; use to consume a large result set, or to
+     * stop early. The element's tree must not be modified while iterating.
+     *
+     * @param query a {@link Selector} query
+     * @return iterator of matching elements, in document order
+     * @see #select(String)
+     */
+    public Iterator<Element> selectIterator(String query) {
+        return Selector.selectIterator(query, this);
+    }
     
     /**
      * Add a node child node to this element.
@@ -368,7 +415,14 @@ public class Element extends Node {
      * @return this element
      */
     public Element empty() {
-        childNodes.clear();
+        invalidateIndex();
+        childNodesChanged();
+        for (Node child : childNodes) { // detached, as by removeChild
+            child.parentNode = null;
+            if (child.inIndexedTree())
+                markIndexedTree(child, false);
+        }
+        childNodes = noChildren; // releases the list
         return this;
     }
 
@@ -400,9 +454,10 @@ public class Element extends Node {
      * @see #previousElementSibling()
      */
     public Element nextElementSibling() {
-        List<Element> siblings = parent().children();
-        Integer index = indexInList(this, siblings);
-        Validate.notNull(index);
+        if (parentNode == null)
+            return null;
+        List<Element> siblings = parent().childElements();
+        int index = elementIndex; // set by childElements()
         if (siblings.size() > index+1)
             return siblings.get(index+1);
         else
@@ -415,9 +470,10 @@ public class Element extends Node {
      * @see #nextElementSibling()
      */
     public Element previousElementSibling() {
-        List<Element> siblings = parent().children();
-        Integer index = indexInList(this, siblings);
-        Validate.notNull(index);
+        if (parentNode == null)
+            return null;
+        List<Element> siblings = parent().childElements();
+        int index = elementIndex;
         if (index > 0)
             return siblings.get(index-1);
         else
@@ -430,7 +486,7 @@ public class Element extends Node {
      */
     public Element firstElementSibling() {
         // todo: should firstSibling() exclude this?
-        List<Element> siblings = parent().children();
+        List<Element> siblings = parent().childElements();
         return siblings.size() > 1 ? siblings.get(0) : null;
     }
     
@@ -441,7 +497,8 @@ public class Element extends Node {
      */
     public Integer elementSiblingIndex() {
        if (parent() == null) return 0;
-       return indexInList(this, parent().children()); 
+       parent().childElements();
+       return elementIndex;
     }
 
     /**
@@ -449,21 +506,9 @@ public class Element extends Node {
      * @return the last sibling that is an element (aka the parent's last element child) 
      */
     public Element lastElementSibling() {
-        List<Element> siblings = parent().children();
+        List<Element> siblings = parent().childElements();
         return siblings.size() > 1 ? siblings.get(siblings.size() - 1) : null;
     }
-    
-    private static <E extends Element> Integer indexInList(Element search, List<E> elements) {
-        Validate.notNull(search);
-        Validate.notNull(elements);
-
-        for (int i = 0; i < elements.size(); i++) {
-            E element = elements.get(i);
-            if (element.equals(search))
-                return i;
-        }
-        return null;
-    }
 
     // DOM type methods
 
@@ -740,27 +785,10 @@ public class Element extends Node {
      *
      * @return unencoded text, or empty string if none.
      * @see #ownText()
+     * @see TextExtractor
      */
     public String text() {
-        StringBuilder sb = new StringBuilder();
-        text(sb);
-        return sb.toString().trim();
-    }
-
-    private void text(StringBuilder accum) {
-        appendWhitespaceIfBr(this, accum);
-        
-        for (Node child : childNodes) {
-            if (child instanceof TextNode) {
-                TextNode textNode = (TextNode) child;
-                appendNormalisedText(accum, textNode);
-            } else if (child instanceof Element) {
-                Element element = (Element) child;
-                if (accum.length() > 0 && element.isBlock() && !TextNode.lastCharIsWhitespace(accum))
-                    accum.append(" ");
-                element.text(accum);
-            }
-        }
+        return new TextExtractor().text(this);
     }
 
     /**
@@ -880,9 +908,11 @@ public class Element extends Node {
      * @return set of classnames, empty if no class attribute
      */
     public Set<String> classNames() {
+        Set<String> classNames = this.classNames;
         if (classNames == null) {
             String[] names = className().split("\\s+");
             classNames = new LinkedHashSet<String>(Arrays.asList(names));
+            this.classNames = classNames;
         }
         return classNames;
     }
@@ -895,6 +925,7 @@ public class Element extends Node {
     public Element classNames(Set<String> classNames) {
         Validate.notNull(classNames);
         attributes.put("class", StringUtil.join(classNames, " "));
+        invalidateIndex();
         return this;
     }
 
@@ -904,14 +935,39 @@ public class Element extends Node {
      * @return true if it does, false if not
      */
     public boolean hasClass(String className) {
-        Set<String> classNames = classNames();
-        for (String name : classNames) {
-            if (className.equalsIgnoreCase(name))
+        // scans the class attribute, rather than memoising classNames(), so matching a class doesn't allocate or write
+        // to the element (e.g. a query on a frozen document). names are split on whitespace as in classNames()
+        String classAttr = className();
+        int len = classAttr.length();
+        int wanted = className.length();
+        if (wanted == 0) { // split gives an empty name for an empty attribute, or for leading whitespace before a name
+            if (len == 0)
                 return true;
+            if (!isClassWhitespace(classAttr.charAt(0)))
+                return false;
+            for (int i = 1; i < len; i++) {
+                if (!isClassWhitespace(classAttr.charAt(i)))
+                    return true;
+            }
+            return false;
+        }
+
+        int start = 0;
+        for (int i = 0; i <= len; i++) {
+            if (i == len || isClassWhitespace(classAttr.charAt(i))) {
+                if (i - start == wanted && classAttr.regionMatches(true, start, className, 0, wanted))
+                    return true;
+                start = i + 1;
+            }
         }
         return false;
     }
 
+    // whitespace, as the \s regex class that splits classNames()
+    static boolean isClassWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
     /**
      Add a class name to this element's {@code class} attribute.
      @param className class name to add
@@ -984,8 +1040,8 @@ public class Element extends Node {
         return this;
     }
 
-    void outerHtmlHead(StringBuilder accum, int depth, Document.OutputSettings out) {
-        if (accum.length() > 0 && out.prettyPrint() && (tag.formatAsBlock() || (parent() != null && parent().tag().formatAsBlock())))
+    void outerHtmlHead(Appendable accum, int depth, Document.OutputSettings out) throws IOException {
+        if (hasOutput(accum) && out.prettyPrint() && (tag.formatAsBlock() || (parent() != null && parent().tag().formatAsBlock())))
             indent(accum, depth, out);
         accum
                 .append("<")
@@ -998,7 +1054,7 @@ public class Element extends Node {
             accum.append(">");
     }
 
-    void outerHtmlTail(StringBuilder accum, int depth, Document.OutputSettings out) {
+    void outerHtmlTail(Appendable accum, int depth, Document.OutputSettings out) throws IOException {
         if (!(childNodes.isEmpty() && tag.isSelfClosing())) {
             if (out.prettyPrint() && !childNodes.isEmpty() && tag.formatAsBlock())
                 indent(accum, depth, out);
@@ -1023,6 +1079,22 @@ public class Element extends Node {
         for (Node node : childNodes)
             node.outerHtml(accum);
     }
+
+    /**
+     * Write the element's inner HTML to an Appendable, such as a {@link java.io.Writer}. The HTML is written out in
+     * chunks as it is serialised, rather than being built up as a String first.
+     *
+     * @param appendable the sink to write the HTML to. It is not flushed or closed.
+     * @throws IOException if the sink throws an exception on append
+     * @see #html()
+     */
+    public void html(Appendable appendable) throws IOException {
+        Validate.notNull(appendable);
+        HtmlWriter writer = new HtmlWriter(appendable, true); // trimmed, as html()
+        for (Node node : childNodes)
+            node.outerHtml(writer);
+        writer.finish();
+    }
     
     /**
      * Set this element's inner HTML. Clears the existing HTML first.
@@ -0,0 +1,84 @@
+package org.jsoup.nodes;
+
+import org.jsoup.select.Elements;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ An index of a document's elements by id, tag name and class name, built in one pass over the document. Element lists
+ are in document order. The index is a snapshot; the document drops it when the tree changes.
+ */
+class ElementIndex {
+    private final Map<String, List<Element>> byId = new HashMap<String, List<Element>>();
+    private final Map<String, List<Element>> byTag = new HashMap<String, List<Element>>();
+    private final Map<String, List<Element>> byClass = new HashMap<String, List<Element>>(); // lower-cased names
+
+    ElementIndex(Document doc) {
+        for (Element el : doc.getAllElements()) {
+            String id = el.id();
+            if (id.length() > 0)
+                add(byId, id, el);
+
+            add(byTag, el.tagName(), el);
+
+            addClasses(el.className(), el);
+        }
+        trimToSize(byId); // most ids and many classes have one element, so spare capacity would dominate
+        trimToSize(byTag);
+        trimToSize(byClass);
+    }
+
+    private static void trimToSize(Map<String, List<Element>> map) {
+        for (List<Element> elements : map.values())
+            ((ArrayList<Element>) elements).trimToSize();
+    }
+
+    // adds each whitespace separated name in the class attribute, without memoising the element's classNames()
+    private void addClasses(String classAttr, Element el) {
+        int len = classAttr.length();
+        int start = 0;
+        for (int i = 0; i <= len; i++) {
+            if (i == len || Element.isClassWhitespace(classAttr.charAt(i))) {
+                if (i > start)
+                    add(byClass, classAttr.substring(start, i).toLowerCase(), el);
+                start = i + 1;
+            }
+        }
+    }
+
+    private static void add(Map<String, List<Element>> map, String key, Element el) {
+        List<Element> elements = map.get(key);
+        if (elements == null) {
+            elements = new ArrayList<Element>(4);
+            map.put(key, elements);
+        } else if (elements.get(elements.size() - 1) == el) { // e.g. a class repeated in the class attribute
+            return;
+        }
+        elements.add(el);
+    }
+
+    Element getFirstById(String id) {
+        List<Element> elements = byId.get(id);
+        return elements == null ? null : elements.get(0);
+    }
+
+    Elements getById(String id) {
+        return copy(byId.get(id));
+    }
+
+    Elements getByTag(String tagName) {
+        return copy(byTag.get(tagName));
+    }
+
+    Elements getByClass(String className) {
+        return copy(byClass.get(className.toLowerCase()));
+    }
+
+    // a new list, as the returned Elements may be modified
+    private static Elements copy(List<Element> elements) {
+        return elements == null ? new Elements() : new Elements(new ArrayList<Element>(elements));
+    }
+}
@@ -0,0 +1,83 @@
+package org.jsoup.nodes;
+
+import java.io.IOException;
+
+/**
+ Buffers serialised HTML on its way to an output sink, writing it out in bounded chunks as the buffer fills, so the
+ output of a large document is never held whole. Optionally trims leading and trailing whitespace from the output (as
+ {@link String#trim()}), to match the String serialisation methods that do.
+ */
+class HtmlWriter implements Appendable {
+    private static final int bufferSize = 8 * 1024;
+
+    private final Appendable sink;
+    private final boolean trim;
+    private final StringBuilder buffer = new StringBuilder(bufferSize);
+    private long length = 0; // chars appended, including any trimmed
+    private boolean written = false; // if any chars have been written to the sink
+
+    HtmlWriter(Appendable sink, boolean trim) {
+        this.sink = sink;
+        this.trim = trim;
+    }
+
+    /**
+     Get if anything has been appended, i.e. if the serialisation is past its start.
+     */
+    boolean hasOutput() {
+        return length > 0;
+    }
+
+    public HtmlWriter append(CharSequence csq) throws IOException {
+        buffer.append(csq);
+        length += csq.length();
+        if (buffer.length() >= bufferSize)
+            flush(false);
+        return this;
+    }
+
+    public HtmlWriter append(CharSequence csq, int start, int end) throws IOException {
+        buffer.append(csq, start, end);
+        length += end - start;
+        if (buffer.length() >= bufferSize)
+            flush(false);
+        return this;
+    }
+
+    public HtmlWriter append(char c) throws IOException {
+        buffer.append(c);
+        length++;
+        if (buffer.length() >= bufferSize)
+            flush(false);
+        return this;
+    }
+
+    /**
+     Write out the rest of the buffer. Does not flush or close the sink.
+     */
+    void finish() throws IOException {
+        flush(true);
+    }
+
+    private void flush(boolean end) throws IOException {
+        int start = 0;
+        int stop = buffer.length();
+        if (trim) {
+            if (!written) {
+                while (start < stop && buffer.charAt(start) <= ' ')
+                    start++;
+            }
+            // trailing whitespace is held back until it's known not to be the end of the output
+            while (stop > start && buffer.charAt(stop - 1) <= ' ')
+                stop--;
+        }
+        if (stop > start) {
+            sink.append(buffer, start, stop);
+            written = true;
+        }
+        if (end || stop == start && !written)
+            buffer.setLength(0);
+        else
+            buffer.delete(0, stop);
+    }
+}
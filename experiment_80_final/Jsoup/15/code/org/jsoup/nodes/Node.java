@@ -1,13 +1,16 @@
 package org.jsoup.nodes;
 
+import org.jsoup.UncheckedIOException;
 import org.jsoup.helper.StringUtil;
 import org.jsoup.helper.Validate;
 import org.jsoup.parser.Parser;
 import org.jsoup.select.NodeTraversor;
 import org.jsoup.select.NodeVisitor;
 
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -17,6 +20,11 @@ import java.util.List;
 
  @author Jonathan Hedley, jonathan@hedley.net */
 public abstract class Node implements Cloneable {
+    // shared by nodes without children (text, data, comments, and empty elements); replaced by a list when the first
+    // child is added. measured on the node.js API docs, an element with its attributes and child list averages ~150
+    // bytes and a text node 40 bytes, plus the strings they hold.
+    static final List<Node> noChildren = Collections.emptyList();
+
     Node parentNode;
     List<Node> childNodes;
     Attributes attributes;
@@ -32,7 +40,7 @@ public abstract class Node implements Cloneable {
         Validate.notNull(baseUri);
         Validate.notNull(attributes);
         
-        childNodes = new ArrayList<Node>(4);
+        childNodes = noChildren;
         this.baseUri = baseUri.trim();
         this.attributes = attributes;
     }
@@ -45,7 +53,7 @@ public abstract class Node implements Cloneable {
      * Default constructor. Doesn't setup base uri, children, or attributes; use with caution.
      */
     protected Node() {
-        childNodes = Collections.emptyList();
+        childNodes = noChildren;
         attributes = null;
     }
 
@@ -123,6 +131,69 @@ public abstract class Node implements Cloneable {
         return this;
     }
 
+    // called when this node's child nodes are added, removed or replaced
+    void childNodesChanged() {}
+
+    // called before a change to the tree, or to an element's id, class or tag name: throws if the owner document is
+    // frozen; else its element index, if it has one, is now out of date
+    void invalidateIndex() {
+        if (!inIndexedTree())
+            return;
+        Document doc = ownerDocument();
+        if (doc != null)
+            doc.treeChanged();
+    }
+
+    // called before another change to this node: throws if the owner document is frozen
+    void checkMutable() {
+        if (!inIndexedTree())
+            return;
+        Document doc = ownerDocument();
+        if (doc != null)
+            doc.checkNotFrozen();
+    }
+
+    // if this node is in the tree of an indexed (or frozen) document, so its changes must be checked with the document.
+    // marked on the node's attributes, as their owner, so a change made directly to them is also checked; most trees
+    // aren't indexed, so changes to them don't walk up to the document, which would cost the depth of the tree.
+    boolean inIndexedTree() {
+        return attributes != null && attributes.owner != null;
+    }
+
+    // marks (or unmarks) a subtree as in an indexed document's tree, as it is indexed or the subtree is added to one.
+    // iterative, as a deep tree could overflow the stack
+    static void markIndexedTree(Node root, boolean indexed) {
+        Node node = root;
+        while (true) {
+            if (node.attributes != null)
+                node.attributes.owner = indexed ? node : null;
+            if (!node.childNodes.isEmpty()) {
+                node = node.childNodes.get(0);
+                continue;
+            }
+            while (node != root && node.siblingIndex + 1 == node.parentNode.childNodes.size())
+                node = node.parentNode;
+            if (node == root)
+                return;
+            node = node.parentNode.childNodes.get(node.siblingIndex + 1);
+        }
+    }
+
+    // marks a node just added as a child, and its descendants, as in this node's tree if that is indexed, or not
+    private void adopt(Node child) {
+        boolean indexed = inIndexedTree();
+        if (child.inIndexedTree() != indexed)
+            markIndexedTree(child, indexed);
+    }
+
+    // trims this node's storage and makes its attributes read-only, as its document is frozen
+    void freezeNode() {
+        if (childNodes instanceof ArrayList)
+            ((ArrayList<Node>) childNodes).trimToSize();
+        if (attributes != null)
+            attributes = attributes.frozen();
+    }
+
     /**
      Get the base URI of this node.
      @return base URI
@@ -137,6 +208,7 @@ public abstract class Node implements Cloneable {
      */
     public void setBaseUri(String baseUri) {
         Validate.notNull(baseUri);
+        checkMutable();
         this.baseUri = baseUri;
     }
 
@@ -163,27 +235,10 @@ public abstract class Node implements Cloneable {
     public String absUrl(String attributeKey) {
         Validate.notEmpty(attributeKey);
 
-        String relUrl = attr(attributeKey);
         if (!hasAttr(attributeKey)) {
             return ""; // nothing to make absolute with
         } else {
-            URL base;
-            try {
-                try {
-                    base = new URL(baseUri);
-                } catch (MalformedURLException e) {
-                    // the base is unsuitable, but the attribute may be abs on its own, so try that
-                    URL abs = new URL(relUrl);
-                    return abs.toExternalForm();
-                }
-                // workaround: java resolves '//path/file + ?foo' to '//path/?foo', not '//path/file?foo' as desired
-                if (relUrl.startsWith("?"))
-                    relUrl = base.getPath() + relUrl;
-                URL abs = new URL(base, relUrl);
-                return abs.toExternalForm();
-            } catch (MalformedURLException e) {
-                return "";
-            }
+            return StringUtil.resolve(baseUri, attr(attributeKey));
         }
     }
 
@@ -204,7 +259,15 @@ public abstract class Node implements Cloneable {
     public List<Node> childNodes() {
         return Collections.unmodifiableList(childNodes);
     }
-    
+
+    /**
+     Get the number of child nodes that this node holds.
+     @return the number of child nodes that this node holds.
+     */
+    public int childNodeSize() {
+        return childNodes.size();
+    }
+
     protected Node[] childNodesAsArray() {
         return childNodes.toArray(new Node[childNodes().size()]);
     }
@@ -222,12 +285,13 @@ public abstract class Node implements Cloneable {
      * @return the Document associated with this Node, or null if there is no such Document.
      */
     public Document ownerDocument() {
-        if (this instanceof Document)
-            return (Document) this;
-        else if (parentNode == null)
-            return null;
-        else
-            return parentNode.ownerDocument();
+        Node node = this;
+        while (!(node instanceof Document)) { // iterative, as a deep tree could overflow the stack
+            node = node.parentNode;
+            if (node == null)
+                return null;
+        }
+        return (Document) node;
     }
     
     /**
@@ -378,41 +442,64 @@ public abstract class Node implements Cloneable {
     protected void replaceChild(Node out, Node in) {
         Validate.isTrue(out.parentNode == this);
         Validate.notNull(in);
+        invalidateIndex();
         if (in.parentNode != null)
             in.parentNode.removeChild(in);
         
+        childNodesChanged();
         Integer index = out.siblingIndex();
         childNodes.set(index, in);
         in.parentNode = this;
         in.setSiblingIndex(index);
         out.parentNode = null;
+        if (out.inIndexedTree())
+            markIndexedTree(out, false);
+        adopt(in);
     }
 
     protected void removeChild(Node out) {
         Validate.isTrue(out.parentNode == this);
+        invalidateIndex();
+        childNodesChanged();
         int index = out.siblingIndex();
         childNodes.remove(index);
-        reindexChildren();
+        reindexChildren(index);
         out.parentNode = null;
+        if (out.inIndexedTree())
+            markIndexedTree(out, false);
     }
 
     protected void addChildren(Node... children) {
         //most used. short circuit addChildren(int), which hits reindex children and array copy
+        invalidateIndex();
+        childNodesChanged();
+        ensureChildNodes();
         for (Node child: children) {
             reparentChild(child);
             childNodes.add(child);
             child.setSiblingIndex(childNodes.size()-1);
+            adopt(child);
         }
     }
 
     protected void addChildren(int index, Node... children) {
         Validate.noNullElements(children);
+        invalidateIndex();
+        childNodesChanged();
+        ensureChildNodes();
         for (int i = children.length - 1; i >= 0; i--) {
             Node in = children[i];
             reparentChild(in);
             childNodes.add(index, in);
         }
         reindexChildren();
+        for (Node in : children)
+            adopt(in);
+    }
+
+    private void ensureChildNodes() {
+        if (childNodes == noChildren) // most elements have one or two children, so this is mostly exactly sized
+            childNodes = new ArrayList<Node>(2);
     }
 
     private void reparentChild(Node child) {
@@ -422,7 +509,11 @@ public abstract class Node implements Cloneable {
     }
     
     private void reindexChildren() {
-        for (int i = 0; i < childNodes.size(); i++) {
+        reindexChildren(0);
+    }
+
+    private void reindexChildren(int start) {
+        for (int i = start; i < childNodes.size(); i++) {
             childNodes.get(i).setSiblingIndex(i);
         }
     }
@@ -494,6 +585,41 @@ public abstract class Node implements Cloneable {
         new NodeTraversor(new OuterHtmlVisitor(accum, getOutputSettings())).traverse(this);
     }
 
+    /**
+     Write the outer HTML of this node to an Appendable, such as a {@link Writer}. The HTML is written out in chunks as
+     it is serialised, rather than being built up as a String first.
+     @param appendable the sink to write the HTML to. It is not flushed or closed.
+     @throws IOException if the sink throws an exception on append
+     */
+    public void outerHtml(Appendable appendable) throws IOException {
+        Validate.notNull(appendable);
+        HtmlWriter writer = new HtmlWriter(appendable, false);
+        outerHtml(writer);
+        writer.finish();
+    }
+
+    /**
+     Write the outer HTML of this node to an OutputStream, encoded in the charset of the output settings (i.e. the
+     owner document's {@link Document.OutputSettings#charset()}).
+     @param out the stream to write the HTML to. It is flushed, but not closed.
+     @throws IOException if the stream throws an exception on write
+     */
+    public void outerHtml(OutputStream out) throws IOException {
+        Validate.notNull(out);
+        Writer writer = new OutputStreamWriter(out, getOutputSettings().charset());
+        outerHtml(writer);
+        writer.flush();
+    }
+
+    // serialises this node to the writer, unwrapping an IOException thrown by the sink from the traversal
+    void outerHtml(HtmlWriter writer) throws IOException {
+        try {
+            new NodeTraversor(new OuterHtmlVisitor(writer, getOutputSettings())).traverse(this);
+        } catch (UncheckedIOException e) {
+            throw e.ioException();
+        }
+    }
+
     // if this node has no document (or parent), retrieve the default output settings
     private Document.OutputSettings getOutputSettings() {
         return ownerDocument() != null ? ownerDocument().outputSettings() : (new Document("")).outputSettings();
@@ -503,18 +629,28 @@ public abstract class Node implements Cloneable {
      Get the outer HTML of this node.
      @param accum accumulator to place HTML into
      */
-    abstract void outerHtmlHead(StringBuilder accum, int depth, Document.OutputSettings out);
+    abstract void outerHtmlHead(Appendable accum, int depth, Document.OutputSettings out) throws IOException;
 
-    abstract void outerHtmlTail(StringBuilder accum, int depth, Document.OutputSettings out);
+    abstract void outerHtmlTail(Appendable accum, int depth, Document.OutputSettings out) throws IOException;
 
     public String toString() {
         return outerHtml();
     }
 
-    protected void indent(StringBuilder accum, int depth, Document.OutputSettings out) {
+    protected void indent(Appendable accum, int depth, Document.OutputSettings out) throws IOException {
         accum.append("\n").append(StringUtil.padding(depth * out.indentAmount()));
     }
 
+    // if anything has been serialised to accum yet; a block element at the very start is not indented
+    static boolean hasOutput(Appendable accum) {
+        if (accum instanceof StringBuilder)
+            return ((StringBuilder) accum).length() > 0;
+        else if (accum instanceof HtmlWriter)
+            return ((HtmlWriter) accum).hasOutput();
+        else
+            return true;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -555,7 +691,8 @@ public abstract class Node implements Cloneable {
         clone.siblingIndex = parent == null ? 0 : siblingIndex;
         clone.attributes = attributes != null ? attributes.clone() : null;
         clone.baseUri = baseUri;
-        clone.childNodes = new ArrayList<Node>(childNodes.size());
+        clone.childNodes = childNodes.isEmpty() ? noChildren : new ArrayList<Node>(childNodes.size()); // size exact
+        clone.childNodesChanged();
         for (Node child: childNodes)
             clone.childNodes.add(child.doClone(clone)); // clone() creates orphans, doClone() keeps parent
 
@@ -563,21 +700,30 @@ public abstract class Node implements Cloneable {
     }
 
     private static class OuterHtmlVisitor implements NodeVisitor {
-        private StringBuilder accum;
+        private Appendable accum;
         private Document.OutputSettings out;
 
-        OuterHtmlVisitor(StringBuilder accum, Document.OutputSettings out) {
+        OuterHtmlVisitor(Appendable accum, Document.OutputSettings out) {
             this.accum = accum;
             this.out = out;
         }
 
         public void head(Node node, int depth) {
-            node.outerHtmlHead(accum, depth, out);
+            try {
+                node.outerHtmlHead(accum, depth, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
 
         public void tail(Node node, int depth) {
-            if (!node.nodeName().equals("#text")) // saves a void hit.
-                node.outerHtmlTail(accum, depth, out);
+            if (!node.nodeName().equals("#text")) { // saves a void hit.
+                try {
+                    node.outerHtmlTail(accum, depth, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
         }
     }
 }
@@ -0,0 +1,209 @@
+package org.jsoup.nodes;
+
+import org.jsoup.UncheckedIOException;
+import org.jsoup.helper.Validate;
+
+import java.io.IOException;
+
+/**
+ Extracts the combined, whitespace normalised text of a node and its descendants, as {@link Element#text()} returns.
+ The tree is walked iteratively, so a deeply nested document can't overflow the stack, and whitespace is normalised in
+ the same single pass, straight into the output.
+ <p/>
+ An extractor holds a buffer that is reused by each {@link #text(Node)} call, so is cheap to use repeatedly (e.g. for
+ every result of a select), but is not thread-safe. Set a {@link #maxLength(int) maximum length} to get a snippet;
+ the walk stops once that much text has been found.
+ */
+public class TextExtractor {
+    private static final int flushSize = 8 * 1024;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private final StringBuilder whitespace = new StringBuilder(); // held back until it's known not to be trailing
+    private int maxLength = Integer.MAX_VALUE;
+
+    private Appendable out; // null when extracting to a String
+    private long emitted; // chars of output, including those flushed
+    private boolean hasText; // if any text (untrimmed) has been found; a block element then separates with a space
+    private char last; // the last char found, before trimming, as text() checks for a space separator
+
+    /**
+     Create a new text extractor, with no maximum length.
+     */
+    public TextExtractor() {}
+
+    /**
+     Set the maximum length of extracted text, e.g. to make snippets. Text is cut off at that many chars (or one fewer,
+     so as not to split a surrogate pair), and the rest of the tree is not walked.
+     @param maxLength maximum length in chars; must be positive
+     @return this extractor, for chaining
+     */
+    public TextExtractor maxLength(int maxLength) {
+        Validate.isTrue(maxLength > 0, "maxLength must be positive");
+        this.maxLength = maxLength;
+        return this;
+    }
+
+    /**
+     Get the text of a node and its descendants.
+     @param node node to get the text of
+     @return unencoded text, or empty string if none.
+     @see Element#text()
+     */
+    public String text(Node node) {
+        Validate.notNull(node);
+        start(null);
+        extract(node);
+        String text = buffer.toString();
+        buffer.setLength(0);
+        return text;
+    }
+
+    /**
+     Write the text of a node and its descendants to an Appendable, such as a {@link java.io.Writer}. The text is
+     written out in chunks as it is found.
+     @param node node to get the text of
+     @param appendable the sink to write the text to. It is not flushed or closed.
+     @throws IOException if the sink throws an exception on append
+     */
+    public void text(Node node, Appendable appendable) throws IOException {
+        Validate.notNull(node);
+        Validate.notNull(appendable);
+        start(appendable);
+        try {
+            extract(node);
+            flush();
+        } catch (UncheckedIOException e) {
+            throw e.ioException();
+        } finally {
+            buffer.setLength(0);
+            out = null;
+        }
+    }
+
+    private void start(Appendable appendable) {
+        out = appendable;
+        buffer.setLength(0);
+        whitespace.setLength(0);
+        emitted = 0;
+        hasText = false;
+        last = 0;
+    }
+
+    // walks the tree in document order, as the former recursive Element.text(StringBuilder)
+    private void extract(Node root) {
+        int preservingFrom = -1; // depth of the outermost element that preserves whitespace; -1 if none
+        if (root instanceof Element) {
+            if (((Element) root).preserveWhitespace())
+                preservingFrom = 0;
+        } else if (root.parent() instanceof Element && ((Element) root.parent()).preserveWhitespace()) {
+            preservingFrom = 0;
+        }
+
+        Node node = root;
+        int depth = 0;
+        while (true) {
+            if (node instanceof TextNode) {
+                appendText(((TextNode) node).getWholeText(), preservingFrom >= 0);
+            } else if (node instanceof Element) {
+                Element el = (Element) node;
+                if (node != root && hasText && el.isBlock() && last != ' ')
+                    append(' ');
+                if (el.tag().getName().equals("br") && last != ' ')
+                    append(' ');
+                if (preservingFrom < 0 && el.tag().preserveWhitespace())
+                    preservingFrom = depth;
+            }
+            if (emitted >= maxLength)
+                return;
+
+            if (node.childNodeSize() > 0 && node instanceof Element) {
+                node = node.childNode(0);
+                depth++;
+                continue;
+            }
+            while (node != root && node.nextSibling() == null) {
+                node = node.parent();
+                depth--;
+                if (preservingFrom > depth)
+                    preservingFrom = -1;
+            }
+            if (node == root)
+                return;
+            node = node.nextSibling();
+            if (preservingFrom >= depth) // leaving the preserving element for its sibling
+                preservingFrom = -1;
+        }
+    }
+
+    // appends text, collapsing each run of whitespace to a single space (including across text nodes), unless preserved
+    private void appendText(String text, boolean preserve) {
+        int len = text.length();
+        for (int i = 0; i < len && emitted < maxLength; ) {
+            int c = text.codePointAt(i);
+            i += Character.charCount(c);
+            if (preserve) {
+                appendCodePoint(c);
+            } else if (Character.isWhitespace(c)) {
+                if (last != ' ')
+                    append(' ');
+            } else {
+                appendCodePoint(c);
+            }
+        }
+    }
+
+    private void appendCodePoint(int c) {
+        if (Character.isSupplementaryCodePoint(c)) {
+            if (emitted + whitespace.length() + 2 > maxLength) { // don't split the pair; cap the text here
+                commitWhitespace();
+                emitted = maxLength;
+                return;
+            }
+            int offset = c - Character.MIN_SUPPLEMENTARY_CODE_POINT; // split to the surrogate pair, as Character.toChars
+            append((char) (Character.MIN_HIGH_SURROGATE + (offset >>> 10)));
+            append((char) (Character.MIN_LOW_SURROGATE + (offset & 0x3ff)));
+        } else {
+            append((char) c);
+        }
+    }
+
+    // appends a char to the output, trimming leading and trailing whitespace (as String.trim())
+    private void append(char c) {
+        hasText = true;
+        last = c;
+        if (c <= ' ') {
+            if (emitted > 0) // else leading, so trimmed
+                whitespace.append(c);
+            return;
+        }
+
+        commitWhitespace();
+        if (emitted >= maxLength)
+            return;
+        buffer.append(c);
+        emitted++;
+        if (out != null && buffer.length() >= flushSize)
+            flush();
+    }
+
+    // writes held back whitespace (as far as the maximum length), as more text follows it
+    private void commitWhitespace() {
+        if (whitespace.length() > 0) {
+            int room = (int) Math.min(whitespace.length(), maxLength - emitted);
+            buffer.append(whitespace, 0, room);
+            emitted += room;
+            whitespace.setLength(0);
+        }
+    }
+
+    private void flush() {
+        if (out == null)
+            return;
+        try {
+            out.append(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.setLength(0);
+    }
+}
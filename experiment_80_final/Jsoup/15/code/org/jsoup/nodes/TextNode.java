@@ -3,6 +3,8 @@ package org.jsoup.nodes;
 import org.jsoup.helper.StringUtil;
 import org.jsoup.helper.Validate;
 
+import java.io.IOException;
+
 /**
  A text node.
 
@@ -47,6 +49,7 @@ public class TextNode extends Node {
      * @return this, for chaining
      */
     public TextNode text(String text) {
+        checkMutable();
         this.text = text;
         if (attributes != null)
             attributes.put(TEXT_KEY, text);
@@ -78,6 +81,8 @@ public class TextNode extends Node {
     public TextNode splitText(int offset) {
         Validate.isTrue(offset >= 0, "Split offset must be not be negative");
         Validate.isTrue(offset < text.length(), "Split offset must not be greater than current text length");
+        if (parent() != null)
+            parent().invalidateIndex(); // before changing this, in case the document is frozen
 
         String head = getWholeText().substring(0, offset);
         String tail = getWholeText().substring(offset);
@@ -89,7 +94,7 @@ public class TextNode extends Node {
         return tailNode;
     }
 
-    void outerHtmlHead(StringBuilder accum, int depth, Document.OutputSettings out) {
+    void outerHtmlHead(Appendable accum, int depth, Document.OutputSettings out) throws IOException {
         String html = Entities.escape(getWholeText(), out);
         if (out.prettyPrint() && parent() instanceof Element && !((Element) parent()).preserveWhitespace()) {
             html = normaliseWhitespace(html);
@@ -100,7 +105,7 @@ public class TextNode extends Node {
         accum.append(html);
     }
 
-    void outerHtmlTail(StringBuilder accum, int depth, Document.OutputSettings out) {}
+    void outerHtmlTail(Appendable accum, int depth, Document.OutputSettings out) throws IOException {}
 
     public String toString() {
         return outerHtml();
@@ -129,11 +134,18 @@ public class TextNode extends Node {
         return sb.length() != 0 && sb.charAt(sb.length() - 1) == ' ';
     }
 
+    @Override
+    boolean inIndexedTree() { // attributes are made lazily, so not marked; but a text node is always in its parent's tree
+        return parentNode != null && parentNode.inIndexedTree();
+    }
+
     // attribute fiddling. create on first access.
     private void ensureAttributes() {
         if (attributes == null) {
-            attributes = new Attributes();
+            Attributes attributes = new Attributes();
             attributes.put(TEXT_KEY, text);
+            Document doc = ownerDocument();
+            this.attributes = doc != null && doc.isFrozen() ? attributes.frozen() : attributes;
         }
     }
 
@@ -1,155 +1,478 @@
 package org.jsoup.parser;
 
+import org.jsoup.UncheckedIOException;
+import org.jsoup.helper.EntityTrie;
+import org.jsoup.helper.Validate;
+
+import java.io.IOException;
+import java.io.Reader;
+
 /**
  CharacterReader cosumes tokens off a string. To replace the old TokenQueue.
+ <p>
+ When created over a {@link Reader}, the input is pulled into a bounded buffer that is refilled as it is consumed, so
+ the memory held by the reader is proportional to the buffer size, not to the size of the input. While a mark is set,
+ everything from the mark is kept, so the buffer grows if a lookahead from a mark is longer than it. Likewise, it grows
+ to read ahead to the end tag of a title or textarea, if that is further than the buffer.
  */
 class CharacterReader {
     static final char EOF = (char) -1;
-
-    private final String input;
-    private final int length;
-    private int pos = 0;
-    private int mark = 0;
+    private static final char nullChar = '\u0000';
+    static final int maxBufferLen = 1024 * 32; // size of the buffer when streaming from a Reader
+    private static final int minReadAhead = maxBufferLen / 4; // refill once fewer unread chars than this are buffered
+    private static final int maxReusedBufferLen = 1024 * 1024; // larger buffers are not kept for reuse
+    private static final int maxCachedNameLen = 12; // longer tag and attribute names are not canonicalised
+    private static final int nameCacheSize = 512; // must be a power of two
+
+    private final String[] nameCache = new String[nameCacheSize]; // lower-cased names, by hash of their chars
+
+    private char[] charBuf;
+    private Reader reader; // source to refill from; null when the input is fully buffered
+    private int bufLength; // number of valid chars in charBuf
+    private int bufPos;
+    private int bufMark;
+    private int readerPos; // offset in the input of charBuf[0]
 
     CharacterReader(String input) {
-        this.input = input;
-        this.length = input.length();
+        reset(input);
+    }
+
+    CharacterReader(Reader input) {
+        reset(input);
+    }
+
+    /**
+     Reset this reader to read from new input, reusing its buffer if it fits.
+     */
+    void reset(String input) {
+        Validate.notNull(input);
+        int length = input.length();
+        if (charBuf != null && length <= charBuf.length && charBuf.length <= maxReusedBufferLen)
+            input.getChars(0, length, charBuf, 0);
+        else
+            charBuf = input.toCharArray();
+        reader = null;
+        bufLength = length;
+        resetPositions();
+    }
+
+    /**
+     Reset this reader to stream from a new Reader, reusing its buffer if it is large enough.
+     */
+    void reset(Reader input) {
+        Validate.notNull(input);
+        if (charBuf == null || charBuf.length < maxBufferLen || charBuf.length > maxReusedBufferLen)
+            charBuf = new char[maxBufferLen];
+        reader = input;
+        bufLength = 0;
+        resetPositions();
+        fill();
+    }
+
+    private void resetPositions() {
+        bufPos = 0;
+        bufMark = -1;
+        readerPos = 0;
+    }
+
+    private void bufferUp() {
+        if (reader != null && bufLength - bufPos < minReadAhead)
+            fill();
+    }
+
+    // shifts the unread chars to the front of the buffer, then tops it up from the reader. keeps one consumed char
+    // for unconsume(), and everything from the mark, so it can be rewound to. if that leaves too little room to read
+    // ahead (a long lookahead from the mark, such as a run of letters after an &), the buffer is doubled.
+    private void fill() {
+        int keep = bufPos > 0 ? bufPos - 1 : 0;
+        if (bufMark != -1)
+            keep = Math.min(keep, bufMark);
+        if (keep > 0) {
+            System.arraycopy(charBuf, keep, charBuf, 0, bufLength - keep);
+            readerPos += keep;
+            bufLength -= keep;
+            bufPos -= keep;
+            if (bufMark != -1)
+                bufMark -= keep;
+        }
+        if (charBuf.length - bufLength < minReadAhead) {
+            char[] grown = new char[charBuf.length * 2];
+            System.arraycopy(charBuf, 0, grown, 0, bufLength);
+            charBuf = grown;
+        }
+
+        try {
+            while (bufLength < charBuf.length) {
+                int read = reader.read(charBuf, bufLength, charBuf.length - bufLength);
+                if (read == -1) {
+                    reader = null;
+                    break;
+                }
+                bufLength += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // takes the chars up to end as the result of a consume, joined to anything stashed from previous buffers
+    private String take(StringBuilder accum, int end) {
+        String consumed = new String(charBuf, bufPos, end - bufPos);
+        bufPos = end;
+        return accum == null ? consumed : accum.append(consumed).toString();
+    }
+
+    // a consume has run to the end of the buffer: keep what has been matched so far and refill
+    private StringBuilder stash(StringBuilder accum, int end) {
+        if (accum == null)
+            accum = new StringBuilder(maxBufferLen);
+        accum.append(charBuf, bufPos, end - bufPos);
+        bufPos = end;
+        fill();
+        return accum;
     }
 
     int pos() {
-        return pos;
+        return readerPos + bufPos;
     }
 
     boolean isEmpty() {
-        return pos >= length;
+        bufferUp();
+        return bufPos >= bufLength;
     }
 
     char current() {
-        return isEmpty() ? EOF : input.charAt(pos);
+        return isEmpty() ? EOF : charBuf[bufPos];
     }
 
     char consume() {
-        return isEmpty() ? EOF : input.charAt(pos++);
+        return isEmpty() ? EOF : charBuf[bufPos++];
     }
 
     void unconsume() {
-        pos--;
+        bufPos--;
     }
 
     void advance() {
-        pos++;
+        bufPos++;
     }
 
     void mark() {
-        mark = pos;
+        bufMark = bufPos;
     }
 
     void rewindToMark() {
-        pos = mark;
+        Validate.isFalse(bufMark == -1, "Mark invalid");
+        bufPos = bufMark;
+    }
+
+    // clears the mark, so the chars from it need no longer be kept
+    void unmark() {
+        bufMark = -1;
     }
 
     String consumeAsString() {
-        return input.substring(pos, pos++);
+        bufferUp();
+        return new String(charBuf, bufPos++, 1);
     }
 
     String consumeTo(char c) {
-        int offset = input.indexOf(c, pos);
-        if (offset != -1) {
-            String consumed = input.substring(pos, offset);
-            pos += consumed.length();
-            return consumed;
-        } else {
-            return consumeToEnd();
+        StringBuilder accum = null;
+        while (true) {
+            bufferUp();
+            for (int i = bufPos; i < bufLength; i++) {
+                if (charBuf[i] == c)
+                    return take(accum, i);
+            }
+            if (reader == null)
+                return take(accum, bufLength);
+            accum = stash(accum, bufLength);
         }
     }
 
     String consumeTo(String seq) {
-        int offset = input.indexOf(seq, pos);
-        if (offset != -1) {
-            String consumed = input.substring(pos, offset);
-            pos += consumed.length();
-            return consumed;
-        } else {
-            return consumeToEnd();
+        StringBuilder accum = null;
+        while (true) {
+            bufferUp();
+            int offset = nextIndexOf(seq);
+            if (offset != -1)
+                return take(accum, offset);
+            if (reader == null)
+                return take(accum, bufLength);
+            // the start of seq may be at the end of the buffer, so leave that for the next scan
+            accum = stash(accum, Math.max(bufPos, bufLength - seq.length() + 1));
         }
     }
 
     String consumeToAny(char... seq) {
-        int start = pos;
+        StringBuilder accum = null;
+        while (true) {
+            bufferUp();
+            int end = bufPos;
+            OUTER: while (end < bufLength) {
+                char c = charBuf[end];
+                for (char seek : seq) {
+                    if (seek == c)
+                        break OUTER;
+                }
+                end++;
+            }
+            if (end < bufLength || reader == null)
+                return end > bufPos || accum != null ? take(accum, end) : "";
+            accum = stash(accum, end);
+        }
+    }
+
+    /**
+     Consume text in the Data and Rcdata states, up to the next {@code &}, {@code <} or null char.
+     */
+    String consumeData() {
+        return consumeToAnyOf('&', '<', nullChar);
+    }
+
+    /**
+     Consume text in the Rawtext and ScriptData states, up to the next {@code <} or null char.
+     */
+    String consumeRawData() {
+        return consumeToAnyOf('<', nullChar, nullChar);
+    }
+
+    /**
+     Consume a quoted attribute value, up to the closing quote, an {@code &} or a null char.
+     */
+    String consumeAttributeQuoted(boolean single) {
+        return consumeToAnyOf(single ? '\'' : '"', '&', nullChar);
+    }
 
-        OUTER: while (!isEmpty()) {
-            char c = input.charAt(pos);
-            for (char seek : seq) {
-                if (seek == c)
-                    break OUTER;
+    // consumeToAny specialised to three stop chars, so the scan is a tight loop over the buffer without the inner
+    // loop over a varargs array
+    private String consumeToAnyOf(char a, char b, char c) {
+        StringBuilder accum = null;
+        while (true) {
+            bufferUp();
+            final char[] buf = charBuf;
+            final int length = bufLength;
+            int end = bufPos;
+            while (end < length) {
+                char ch = buf[end];
+                if (ch == a || ch == b || ch == c)
+                    break;
+                end++;
             }
-            pos++;
+            if (end < length || reader == null)
+                return end > bufPos || accum != null ? take(accum, end) : "";
+            accum = stash(accum, end);
         }
+    }
+
+    /**
+     Consume a tag name, up to whitespace, {@code /}, {@code >} or a null char, lower-cased.
+     */
+    String consumeTagName() {
+        return consumeLowerCaseName(false);
+    }
+
+    /**
+     Consume an attribute name, up to whitespace or one of {@code / = > " ' <} or a null char, lower-cased.
+     */
+    String consumeAttributeName() {
+        return consumeLowerCaseName(true);
+    }
 
-        return pos > start ? input.substring(start, pos) : "";
+    private String consumeLowerCaseName(boolean attribute) {
+        StringBuilder accum = null;
+        while (true) {
+            bufferUp();
+            int end = bufPos;
+            OUTER: while (end < bufLength) {
+                switch (charBuf[end]) {
+                    case '\t':
+                    case '\n':
+                    case '\f':
+                    case ' ':
+                    case '/':
+                    case '>':
+                    case nullChar:
+                        break OUTER;
+                    case '=':
+                    case '"':
+                    case '\'':
+                    case '<':
+                        if (attribute)
+                            break OUTER;
+                }
+                end++;
+            }
+            if (end < bufLength || reader == null) {
+                if (accum != null)
+                    return take(accum, end).toLowerCase();
+                String name = cachedName(bufPos, end - bufPos);
+                bufPos = end;
+                return name;
+            }
+            accum = stash(accum, end);
+        }
+    }
+
+    // the lower-cased String for the buffered chars, returning the cached instance for a repeated name (so e.g. each
+    // "div" and "class" is the same String, with its hash already computed for the Tag and Attributes lookups)
+    private String cachedName(int start, int count) {
+        if (count > maxCachedNameLen)
+            return new String(charBuf, start, count).toLowerCase();
+        int hash = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = charBuf[i];
+            if (c >= 128) // only ASCII names are cached, as the lower-case mapping of others may depend on locale
+                return new String(charBuf, start, count).toLowerCase();
+            hash = 31 * hash + lowerCase(c);
+        }
+
+        int index = (hash ^ (hash >>> 16)) & (nameCacheSize - 1);
+        String cached = nameCache[index];
+        if (cached != null && cached.length() == count) {
+            int i = 0;
+            while (i < count && cached.charAt(i) == lowerCase(charBuf[start + i]))
+                i++;
+            if (i == count)
+                return cached;
+        }
+
+        char[] lower = new char[count];
+        for (int i = 0; i < count; i++)
+            lower[i] = lowerCase(charBuf[start + i]);
+        String name = new String(lower);
+        nameCache[index] = name;
+        return name;
+    }
+
+    private static char lowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
     }
 
     String consumeToEnd() {
-        String data = input.substring(pos, input.length() - 1);
-        pos = input.length();
-        return data;
+        StringBuilder accum = null;
+        while (true) {
+            bufferUp();
+            if (reader == null)
+                return take(accum, bufLength);
+            accum = stash(accum, bufLength);
+        }
     }
 
     String consumeLetterSequence() {
-        int start = pos;
-        while (!isEmpty()) {
-            char c = input.charAt(pos);
-            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z'))
-                pos++;
-            else
-                break;
+        StringBuilder accum = null;
+        while (true) {
+            bufferUp();
+            int end = bufPos;
+            while (end < bufLength) {
+                char c = charBuf[end];
+                if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z'))
+                    end++;
+                else
+                    break;
+            }
+            if (end < bufLength || reader == null)
+                return take(accum, end);
+            accum = stash(accum, end);
         }
-
-        return input.substring(start, pos);
     }
 
     String consumeHexSequence() {
-        int start = pos;
-        while (!isEmpty()) {
-            char c = input.charAt(pos);
-            if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'F') || (c >= 'a' && c <= 'f'))
-                pos++;
-            else
-                break;
+        StringBuilder accum = null;
+        while (true) {
+            bufferUp();
+            int end = bufPos;
+            while (end < bufLength) {
+                char c = charBuf[end];
+                if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'F') || (c >= 'a' && c <= 'f'))
+                    end++;
+                else
+                    break;
+            }
+            if (end < bufLength || reader == null)
+                return take(accum, end);
+            accum = stash(accum, end);
         }
-        return input.substring(start, pos);
     }
 
     String consumeDigitSequence() {
-        int start = pos;
-        while (!isEmpty()) {
-            char c = input.charAt(pos);
-            if (c >= '0' && c <= '9')
-                pos++;
-            else
+        StringBuilder accum = null;
+        while (true) {
+            bufferUp();
+            int end = bufPos;
+            while (end < bufLength) {
+                char c = charBuf[end];
+                if (c >= '0' && c <= '9')
+                    end++;
+                else
+                    break;
+            }
+            if (end < bufLength || reader == null)
+                return take(accum, end);
+            accum = stash(accum, end);
+        }
+    }
+
+    /**
+     Consume the longest entity name at the current position, for a named character reference.
+     @return the char of the named entity; or -1 if no entity name is matched, when nothing is consumed
+     */
+    int consumeEntityName() {
+        bufferUp(); // when streaming, the read-ahead is always longer than the longest name
+        int node = EntityTrie.root;
+        int length = 0;
+        int c = -1;
+        for (int pos = bufPos; pos < bufLength; pos++) {
+            node = EntityTrie.child(node, charBuf[pos]);
+            if (node == -1)
                 break;
+            int value = EntityTrie.value(node);
+            if (value != -1) { // a whole name; keep walking for a longer one (e.g. &notin after &not)
+                length = pos + 1 - bufPos;
+                c = value;
+            }
         }
-        return input.substring(start, pos);
+        bufPos += length;
+        return c;
     }
 
     boolean matches(char c) {
-        return !isEmpty() && input.charAt(pos) == c;
+        return !isEmpty() && charBuf[bufPos] == c;
 
     }
 
     boolean matches(String seq) {
-        return input.startsWith(seq, pos);
+        bufferUp();
+        int scanLength = seq.length();
+        if (scanLength > bufLength - bufPos)
+            return false;
+        for (int offset = 0; offset < scanLength; offset++) {
+            if (seq.charAt(offset) != charBuf[bufPos + offset])
+                return false;
+        }
+        return true;
     }
 
     boolean matchesIgnoreCase(String seq) {
-        return input.regionMatches(true, pos, seq, 0, seq.length());
+        bufferUp();
+        int scanLength = seq.length();
+        if (scanLength > bufLength - bufPos)
+            return false;
+        for (int offset = 0; offset < scanLength; offset++) {
+            char a = seq.charAt(offset);
+            char b = charBuf[bufPos + offset];
+            if (a != b && Character.toUpperCase(a) != Character.toUpperCase(b)
+                    && Character.toLowerCase(a) != Character.toLowerCase(b))
+                return false;
+        }
+        return true;
     }
 
     boolean matchesAny(char... seq) {
         if (isEmpty())
             return false;
 
-        char c = input.charAt(pos);
+        char c = charBuf[bufPos];
         for (char seek : seq) {
             if (seek == c)
                 return true;
@@ -160,20 +483,20 @@ class CharacterReader {
     boolean matchesLetter() {
         if (isEmpty())
             return false;
-        char c = input.charAt(pos);
+        char c = charBuf[bufPos];
         return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
     }
 
     boolean matchesDigit() {
         if (isEmpty())
             return false;
-        char c = input.charAt(pos);
+        char c = charBuf[bufPos];
         return (c >= '0' && c <= '9');
     }
 
     boolean matchConsume(String seq) {
         if (matches(seq)) {
-            pos += seq.length();
+            bufPos += seq.length();
             return true;
         } else {
             return false;
@@ -182,7 +505,7 @@ class CharacterReader {
 
     boolean matchConsumeIgnoreCase(String seq) {
         if (matchesIgnoreCase(seq)) {
-            pos += seq.length();
+            bufPos += seq.length();
             return true;
         } else {
             return false;
@@ -191,13 +514,40 @@ class CharacterReader {
 
     boolean containsIgnoreCase(String seq) {
         // used to check presence of </title>, </style>. only finds consistent case.
+        // when streaming, reads ahead until found or the input ends, so the parse is as for the same input in a String
+        bufferUp();
         String loScan = seq.toLowerCase();
         String hiScan = seq.toUpperCase();
-        return (input.indexOf(loScan, pos) > -1) || (input.indexOf(hiScan, pos) > -1);
+        while (true) {
+            if ((nextIndexOf(loScan) > -1) || (nextIndexOf(hiScan) > -1))
+                return true;
+            if (reader == null)
+                return false;
+            fill(); // the unread chars are kept, so the buffer grows
+        }
+    }
+
+    // index in the buffer of the next occurrence of seq, or -1 if not buffered
+    private int nextIndexOf(String seq) {
+        char startChar = seq.charAt(0);
+        int last = bufLength - seq.length();
+        for (int offset = bufPos; offset <= last; offset++) {
+            if (charBuf[offset] != startChar)
+                continue;
+            int i = offset + 1;
+            int j = 1;
+            while (j < seq.length() && charBuf[i] == seq.charAt(j)) {
+                i++;
+                j++;
+            }
+            if (j == seq.length())
+                return offset;
+        }
+        return -1;
     }
 
     @Override
     public String toString() {
-        return input.substring(pos);
+        return bufPos < bufLength ? new String(charBuf, bufPos, bufLength - bufPos) : "";
     }
 }
@@ -0,0 +1,182 @@
+package org.jsoup.parser;
+
+import org.jsoup.helper.StringUtil;
+import org.jsoup.helper.Validate;
+import org.jsoup.nodes.Attributes;
+
+import java.util.ArrayList;
+
+/**
+ * Event parser; reports Tokens to a ParseHandler without building a DOM.
+ * <p/>
+ * Applies the tree construction fixups that affect the order and balance of events: tokeniser switches for raw text
+ * elements, void elements, implied end tags, end tags closing open elements, and ignoring stray end tags. Fixups that
+ * re-parent content (formatting element reconstruction, foster parenting out of tables) need a tree, so are not
+ * applied; nor are implied {@code html}, {@code head} and {@code body} elements created.
+ */
+class EventParser {
+    private static final String[] baseScope = {"applet", "caption", "html", "table", "td", "th", "marquee", "object"};
+    private static final String[] tableScope = {"html", "table"};
+    private static final String[] closesParagraph = {"address", "article", "aside", "blockquote", "center", "details",
+            "dir", "div", "dl", "fieldset", "figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6",
+            "header", "hgroup", "hr", "li", "dd", "dt", "listing", "menu", "nav", "ol", "p", "plaintext", "pre",
+            "section", "summary", "table", "ul", "xmp"};
+
+    private final Tokeniser tokeniser;
+    private final ParseHandler handler;
+    private final ArrayList<String> stack = new ArrayList<String>(32); // names of open elements
+
+    EventParser(CharacterReader reader, ParseHandler handler) {
+        Validate.notNull(handler);
+        this.tokeniser = new Tokeniser(reader);
+        this.tokeniser.setTrackErrors(false);
+        this.handler = handler;
+    }
+
+    void parse() {
+        handler.reset();
+        while (!handler.isStopped()) {
+            Token token = tokeniser.read();
+            switch (token.type) {
+                case Doctype:
+                    Token.Doctype doctype = token.asDoctype();
+                    handler.doctype(doctype.getName(), doctype.getPublicIdentifier(), doctype.getSystemIdentifier());
+                    break;
+                case StartTag:
+                    startTag(token.asStartTag());
+                    break;
+                case EndTag:
+                    endTag(token.asEndTag().name());
+                    break;
+                case Comment:
+                    handler.comment(token.asComment().getData());
+                    break;
+                case Character:
+                    String current = currentElement();
+                    if ("script".equals(current) || "style".equals(current))
+                        handler.data(token.asCharacter().getData());
+                    else
+                        handler.text(token.asCharacter().getData());
+                    break;
+                case EOF:
+                    popTo(0);
+                    return;
+            }
+        }
+    }
+
+    private void startTag(Token.StartTag start) {
+        String name = start.name();
+        closeImplied(name);
+        if (handler.isStopped())
+            return;
+        handler.startTag(name, start.getAttributes());
+
+        boolean known = Tag.isKnownTag(name);
+        if ((known && Tag.valueOf(name).isEmpty()) || (!known && start.isSelfClosing())) {
+            tokeniser.acknowledgeSelfClosingFlag();
+            if (!handler.isStopped())
+                handler.endTag(name);
+            return;
+        }
+
+        stack.add(name);
+        if (StringUtil.in(name, "title", "textarea"))
+            tokeniser.transition(TokeniserState.Rcdata);
+        else if (StringUtil.in(name, "iframe", "noembed", "noframes", "style", "xmp"))
+            tokeniser.transition(TokeniserState.Rawtext);
+        else if (name.equals("script"))
+            tokeniser.transition(TokeniserState.ScriptData);
+        else if (name.equals("plaintext"))
+            tokeniser.transition(TokeniserState.PLAINTEXT); // once in, never gets out
+    }
+
+    private void endTag(String name) {
+        String[] scope = StringUtil.in(name, "table", "thead", "tbody", "tfoot", "tr") ? tableScope : baseScope;
+        if (inScope(name, scope)) {
+            popTo(indexOf(name));
+        } else if (name.equals("p")) { // </p> with no open p creates an empty one
+            handler.startTag("p", new Attributes());
+            if (!handler.isStopped())
+                handler.endTag("p");
+        } else if (name.equals("br")) { // </br> is treated as <br>
+            handler.startTag("br", new Attributes());
+            if (!handler.isStopped())
+                handler.endTag("br");
+        }
+        // else a stray end tag, ignored
+    }
+
+    // the end tags implied by the start of a new element
+    private void closeImplied(String name) {
+        if (name.equals("li")) {
+            closeInScope("li", "ol", "ul");
+        } else if (StringUtil.in(name, "dd", "dt")) {
+            closeInScope("dd", "dl");
+            closeInScope("dt", "dl");
+        } else if (name.equals("option")) {
+            if ("option".equals(currentElement()))
+                popTo(stack.size() - 1);
+        } else if (name.equals("optgroup")) {
+            if ("option".equals(currentElement()))
+                popTo(stack.size() - 1);
+            if ("optgroup".equals(currentElement()))
+                popTo(stack.size() - 1);
+        } else if (StringUtil.in(name, "td", "th")) {
+            closeInTableScope("td", "th");
+        } else if (name.equals("tr")) {
+            closeInTableScope("tr");
+        } else if (StringUtil.in(name, "thead", "tbody", "tfoot")) {
+            closeInTableScope("thead", "tbody", "tfoot");
+        }
+
+        if (StringUtil.in(name, closesParagraph) && inScope("p", baseScope, "button"))
+            popTo(indexOf("p"));
+    }
+
+    private void closeInScope(String name, String... extraScope) {
+        if (inScope(name, baseScope, extraScope))
+            popTo(indexOf(name));
+    }
+
+    private boolean inScope(String name, String[] scope, String... extraScope) {
+        for (int i = stack.size() - 1; i >= 0; i--) {
+            String el = stack.get(i);
+            if (el.equals(name))
+                return true;
+            if (StringUtil.in(el, scope) || StringUtil.in(el, extraScope))
+                return false;
+        }
+        return false;
+    }
+
+    // table parts close like the implied end tags of "clear the stack back to a table context"
+    private void closeInTableScope(String... names) {
+        for (int i = stack.size() - 1; i >= 0; i--) {
+            String el = stack.get(i);
+            if (StringUtil.in(el, names)) {
+                popTo(i);
+                return;
+            }
+            if (StringUtil.in(el, "html", "table"))
+                return;
+        }
+    }
+
+    private int indexOf(String name) {
+        return stack.lastIndexOf(name);
+    }
+
+    // pops the elements from the top of the stack down to and including the index, reporting their end tags
+    private void popTo(int index) {
+        for (int i = stack.size() - 1; i >= index; i--) {
+            String name = stack.remove(i);
+            if (!handler.isStopped())
+                handler.endTag(name);
+        }
+    }
+
+    private String currentElement() {
+        return stack.isEmpty() ? null : stack.get(stack.size() - 1);
+    }
+}
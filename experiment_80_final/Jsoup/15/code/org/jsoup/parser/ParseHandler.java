@@ -0,0 +1,70 @@
+package org.jsoup.parser;
+
+import org.jsoup.nodes.Attributes;
+
+/**
+ * Receives events from an event parse ({@link Parser#parseEvents(String, ParseHandler)}), which reports the HTML as it
+ * is tokenised instead of building a Document. Override the events of interest; by default each event is ignored.
+ * <p/>
+ * Events are balanced: every start tag gets an end tag, including implied ones (e.g. an open {@code <p>} closed by a
+ * following {@code <div>}), and void elements like {@code <br>} get an immediate end tag. Call {@link #stop()} from any
+ * event to end the parse early.
+ */
+public abstract class ParseHandler {
+    private boolean stopped = false;
+
+    /**
+     * A doctype declaration.
+     * @param name doctype name, e.g. {@code html}
+     * @param publicId public identifier; empty if not set
+     * @param systemId system identifier; empty if not set
+     */
+    public void doctype(String name, String publicId, String systemId) {}
+
+    /**
+     * An element start tag.
+     * @param tagName lower-cased tag name
+     * @param attributes the tag's attributes. These are only valid during this call; copy any that should be kept.
+     */
+    public void startTag(String tagName, Attributes attributes) {}
+
+    /**
+     * An element end tag, explicit or implied.
+     * @param tagName lower-cased tag name
+     */
+    public void endTag(String tagName) {}
+
+    /**
+     * Character data, with character references decoded.
+     * @param text text. A run of text may be reported in more than one call.
+     */
+    public void text(String text) {}
+
+    /**
+     * Character data in a {@code script} or {@code style} element (which would be a DataNode in a Document).
+     * @param data unencoded data
+     */
+    public void data(String data) {}
+
+    /**
+     * A comment.
+     * @param data comment contents
+     */
+    public void comment(String data) {}
+
+    /**
+     * Stop parsing once the current event returns. No further events, including end tags for open elements, will be
+     * reported.
+     */
+    protected final void stop() {
+        stopped = true;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    void reset() {
+        stopped = false;
+    }
+}
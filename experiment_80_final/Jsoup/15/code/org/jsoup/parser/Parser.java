@@ -3,7 +3,9 @@ package org.jsoup.parser;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
+import org.jsoup.select.Evaluator;
 
+import java.io.Reader;
 import java.util.List;
 
 /**
@@ -24,6 +26,81 @@ public class Parser {
         return treeBuilder.parse(html, baseUri);
     }
 
+    /**
+     * Parse HTML into a Document, streaming the input from a Reader. Characters are pulled from the reader into a
+     * bounded buffer as the parse proceeds, so the whole input is never held in memory at once.
+     *
+     * @param html reader to parse HTML from. It is read to the end, but not closed.
+     * @param baseUri base URI of document (i.e. original fetch location), for resolving relative URLs.
+     *
+     * @return parsed Document
+     * @throws org.jsoup.UncheckedIOException if the reader throws an IOException
+     */
+    public static Document parse(Reader html, String baseUri) {
+        TreeBuilder treeBuilder = new TreeBuilder();
+        return treeBuilder.parse(html, baseUri);
+    }
+
+    /**
+     * Parse HTML into a Document, keeping only the elements that match a filter (with their contents), and their
+     * ancestors. Everything else is discarded as it is closed, so memory use follows the size of the kept content.
+     * <p/>
+     * Each element is tested when it is inserted, and again when it is closed. Filters that depend on an element's
+     * previous siblings (e.g. {@code :eq(n)}, {@code +}, {@code ~}) may not match as they would in a full document, as
+     * the siblings may have been discarded; and a filter matching an element by its contents (e.g. {@code :contains})
+     * may see an incomplete subtree.
+     *
+     * @param html HTML to parse
+     * @param baseUri base URI of document (i.e. original fetch location), for resolving relative URLs.
+     * @param retainFilter filter of the elements to keep, e.g. from {@link org.jsoup.select.QueryParser#parse(String)}
+     *
+     * @return parsed Document, holding the matching elements in their original place
+     */
+    public static Document parse(String html, String baseUri, Evaluator retainFilter) {
+        TreeBuilder treeBuilder = new TreeBuilder(retainFilter);
+        return treeBuilder.parse(html, baseUri);
+    }
+
+    /**
+     * Parse HTML into a Document, streaming the input from a Reader, and keeping only the elements that match a filter.
+     *
+     * @param html reader to parse HTML from. It is read to the end, but not closed.
+     * @param baseUri base URI of document (i.e. original fetch location), for resolving relative URLs.
+     * @param retainFilter filter of the elements to keep
+     *
+     * @return parsed Document
+     * @throws org.jsoup.UncheckedIOException if the reader throws an IOException
+     * @see #parse(String, String, Evaluator)
+     */
+    public static Document parse(Reader html, String baseUri, Evaluator retainFilter) {
+        TreeBuilder treeBuilder = new TreeBuilder(retainFilter);
+        return treeBuilder.parse(html, baseUri);
+    }
+
+    /**
+     * Parse HTML as a stream of events to a handler, without building a Document. Useful to extract a few values from
+     * large input.
+     *
+     * @param html HTML to parse
+     * @param handler handler to receive the events
+     */
+    public static void parseEvents(String html, ParseHandler handler) {
+        EventParser eventParser = new EventParser(new CharacterReader(html), handler);
+        eventParser.parse();
+    }
+
+    /**
+     * Parse HTML as a stream of events to a handler, without building a Document, streaming the input from a Reader.
+     *
+     * @param html reader to parse HTML from. It is read until the end or the handler stops, but not closed.
+     * @param handler handler to receive the events
+     * @throws org.jsoup.UncheckedIOException if the reader throws an IOException
+     */
+    public static void parseEvents(Reader html, ParseHandler handler) {
+        EventParser eventParser = new EventParser(new CharacterReader(html), handler);
+        eventParser.parse();
+    }
+
     /**
      * Parse a fragment of HTML into a list of nodes. The context element, if supplied, supplies parsing context.
      *
@@ -0,0 +1,74 @@
+package org.jsoup.parser;
+
+import org.jsoup.nodes.Document;
+
+import java.io.Reader;
+
+/**
+ * A parser for repeated use, that recycles its tokeniser, character buffers, and element stacks between parses, to
+ * reduce allocation when parsing at high rates.
+ * <p/>
+ * A ReusableParser is not thread safe: confine each instance to one thread, for example by getting it with
+ * {@link #forCurrentThread()}.
+ */
+public class ReusableParser {
+    private static final ThreadLocal<ReusableParser> threadParsers = new ThreadLocal<ReusableParser>() {
+        @Override
+        protected ReusableParser initialValue() {
+            return new ReusableParser();
+        }
+    };
+
+    private final TreeBuilder treeBuilder = new TreeBuilder();
+    private final CharacterReader reader = new CharacterReader("");
+
+    /**
+     * Create a new ReusableParser.
+     */
+    public ReusableParser() {}
+
+    /**
+     * Get the parser for the current thread, creating it if required.
+     *
+     * @return this thread's parser
+     */
+    public static ReusableParser forCurrentThread() {
+        return threadParsers.get();
+    }
+
+    /**
+     * Parse HTML into a Document.
+     *
+     * @param html HTML to parse
+     * @param baseUri base URI of document (i.e. original fetch location), for resolving relative URLs.
+     *
+     * @return parsed Document
+     */
+    public Document parse(String html, String baseUri) {
+        reader.reset(html);
+        return treeBuilder.parse(reader, baseUri);
+    }
+
+    /**
+     * Parse HTML into a Document, streaming the input from a Reader.
+     *
+     * @param html reader to parse HTML from. It is read to the end, but not closed.
+     * @param baseUri base URI of document (i.e. original fetch location), for resolving relative URLs.
+     *
+     * @return parsed Document
+     * @throws org.jsoup.UncheckedIOException if the reader throws an IOException
+     */
+    public Document parse(Reader html, String baseUri) {
+        reader.reset(html);
+        return treeBuilder.parse(reader, baseUri);
+    }
+
+    /**
+     * Clear the state left from the last parse, releasing references to its input and Document. Each parse resets
+     * the parser before it starts, so this is only needed to free memory between parses.
+     */
+    public void reset() {
+        treeBuilder.reset();
+        reader.reset(""); // keeps the buffer for reuse, unless it is too large to hold on to
+    }
+}
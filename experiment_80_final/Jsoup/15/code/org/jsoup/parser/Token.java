@@ -1,7 +1,6 @@
 package org.jsoup.parser;
 
 import org.jsoup.helper.Validate;
-import org.jsoup.nodes.Attribute;
 import org.jsoup.nodes.Attributes;
 
 /**
@@ -13,6 +12,12 @@ abstract class Token {
     private Token() {
     }
 
+    /**
+     * Clear this token's data, so the instance can be reused for the next token of its type.
+     * @return this token
+     */
+    abstract Token reset();
+
     static class Doctype extends Token {
         final StringBuilder name = new StringBuilder();
         final StringBuilder publicIdentifier = new StringBuilder();
@@ -23,6 +28,15 @@ abstract class Token {
             type = TokenType.Doctype;
         }
 
+        @Override
+        Doctype reset() {
+            name.setLength(0);
+            publicIdentifier.setLength(0);
+            systemIdentifier.setLength(0);
+            forceQuirks = false;
+            return this;
+        }
+
         String getName() {
             return name.toString();
         }
@@ -48,12 +62,21 @@ abstract class Token {
         boolean selfClosing = false;
         Attributes attributes = new Attributes(); // todo: allow nodes to not have attributes
 
+        @Override
+        Tag reset() {
+            tagName = null;
+            pendingAttributeName = null;
+            pendingAttributeValue = null;
+            selfClosing = false;
+            attributes = new Attributes(); // the previous attributes are now owned by the element built from them
+            return this;
+        }
+
         void newAttribute() {
             if (pendingAttributeName != null) {
                 if (pendingAttributeValue == null)
                     pendingAttributeValue = "";
-                Attribute attribute = new Attribute(pendingAttributeName, pendingAttributeValue);
-                attributes.put(attribute);
+                attributes.put(pendingAttributeName, pendingAttributeValue);
             }
             pendingAttributeName = null;
             pendingAttributeValue = null;
@@ -146,6 +169,15 @@ abstract class Token {
             this.tagName = name;
         }
 
+        @Override
+        EndTag reset() {
+            Attributes attributes = this.attributes;
+            super.reset();
+            if (attributes.size() == 0) // end tag attributes are never kept, so can reuse if untouched
+                this.attributes = attributes;
+            return this;
+        }
+
         @Override
         public String toString() {
             return "</" + name() + " " + attributes.toString() + ">";
@@ -159,6 +191,12 @@ abstract class Token {
             type = TokenType.Comment;
         }
 
+        @Override
+        Comment reset() {
+            data.setLength(0);
+            return this;
+        }
+
         String getData() {
             return data.toString();
         }
@@ -170,11 +208,26 @@ abstract class Token {
     }
 
     static class Character extends Token {
-        private final String data;
+        private String data;
 
-        Character(String data) {
+        Character() {
             type = TokenType.Character;
+        }
+
+        Character(String data) {
+            this();
+            this.data = data;
+        }
+
+        @Override
+        Character reset() {
+            data = null;
+            return this;
+        }
+
+        Character data(String data) {
             this.data = data;
+            return this;
         }
 
         String getData() {
@@ -191,6 +244,11 @@ abstract class Token {
         EOF() {
             type = Token.TokenType.EOF;
         }
+
+        @Override
+        EOF reset() {
+            return this;
+        }
     }
 
     boolean isDoctype() {
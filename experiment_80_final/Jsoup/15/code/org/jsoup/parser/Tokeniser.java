@@ -1,7 +1,6 @@
 package org.jsoup.parser;
 
 import org.jsoup.helper.Validate;
-import org.jsoup.nodes.Entities;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,13 +24,37 @@ class Tokeniser {
     Token.Tag tagPending; // tag we are building up
     Token.Doctype doctypePending; // doctype building up
     Token.Comment commentPending; // comment building up
-    private Token.StartTag lastStartTag; // the last start tag emitted, to test appropriate end tag
+    private String lastStartTag; // name of the last start tag emitted, to test appropriate end tag
+
+    // token instances are reused for each token emitted; the consumer copies out what it keeps before the next read
+    private final Token.StartTag startPending = new Token.StartTag();
+    private final Token.EndTag endPending = new Token.EndTag();
+    private final Token.Character charPending = new Token.Character();
+    private final Token.Doctype doctypeInstance = new Token.Doctype();
+    private final Token.Comment commentInstance = new Token.Comment();
     private boolean selfClosingFlagAcknowledged = true;
 
     Tokeniser(CharacterReader reader) {
         this.reader = reader;
     }
 
+    /**
+     * Reset this tokeniser to read from a new reader, keeping its buffers for reuse.
+     */
+    void reset(CharacterReader reader) {
+        this.reader = reader;
+        errors.clear();
+        state = TokeniserState.Data;
+        emitPending = null;
+        isEmitPending = false;
+        charBuffer.setLength(0);
+        tagPending = null;
+        doctypePending = null;
+        commentPending = null;
+        lastStartTag = null;
+        selfClosingFlagAcknowledged = true;
+    }
+
     Token read() {
         if (!selfClosingFlagAcknowledged) {
             error("Self closing flag not acknowledged");
@@ -45,7 +68,7 @@ class Tokeniser {
         if (charBuffer.length() > 0) {
             String str = charBuffer.toString();
             charBuffer.delete(0, charBuffer.length());
-            return new Token.Character(str);
+            return charPending.data(str);
         } else {
             isEmitPending = false;
             return emitPending;
@@ -60,7 +83,7 @@ class Tokeniser {
 
         if (token.type == Token.TokenType.StartTag) {
             Token.StartTag startTag = (Token.StartTag) token;
-            lastStartTag = startTag;
+            lastStartTag = startTag.tagName;
             if (startTag.selfClosing)
                 selfClosingFlagAcknowledged = false;
         } else if (token.type == Token.TokenType.EndTag) {
@@ -106,6 +129,14 @@ class Tokeniser {
             return null;
 
         reader.mark();
+        try {
+            return consumeMarkedCharacterReference(inAttribute);
+        } finally {
+            reader.unmark(); // so a streaming reader needn't keep its buffer from here
+        }
+    }
+
+    private Character consumeMarkedCharacterReference(boolean inAttribute) {
         if (reader.matchConsume("#")) { // numbered
             boolean isHexMode = reader.matchConsumeIgnoreCase("X");
             String numRef = isHexMode ? reader.consumeHexSequence() : reader.consumeDigitSequence();
@@ -131,20 +162,11 @@ class Tokeniser {
                 return (char) charval;
             }
         } else { // named
-            // get as many letters as possible, and look for matching entities. unconsume backwards till a match is found
-            String nameRef = reader.consumeLetterSequence();
-            boolean looksLegit = reader.matches(';');
-            boolean found = false;
-            while (nameRef.length() > 0 && !found) {
-                if (Entities.isNamedEntity(nameRef))
-                    found = true;
-                else {
-                    nameRef = nameRef.substring(0, nameRef.length()-1);
-                    reader.unconsume();
-                }
-            }
-            if (!found) {
-                if (looksLegit) // named with semicolon
+            // find the longest entity name at the current position
+            int charval = reader.consumeEntityName();
+            if (charval == -1) {
+                reader.consumeLetterSequence();
+                if (reader.matches(';')) // named with semicolon
                     characterReferenceError();
                 reader.rewindToMark();
                 return null;
@@ -156,12 +178,12 @@ class Tokeniser {
             }
             if (!reader.matchConsume(";"))
                 characterReferenceError(); // missing semi
-            return Entities.getCharacterByName(nameRef);
+            return (char) charval;
         }
     }
 
     Token.Tag createTagPending(boolean start) {
-        tagPending = start ? new Token.StartTag() : new Token.EndTag();
+        tagPending = start ? startPending.reset() : endPending.reset();
         return tagPending;
     }
 
@@ -171,7 +193,7 @@ class Tokeniser {
     }
 
     void createCommentPending() {
-        commentPending = new Token.Comment();
+        commentPending = commentInstance.reset();
     }
 
     void emitCommentPending() {
@@ -179,7 +201,7 @@ class Tokeniser {
     }
 
     void createDoctypePending() {
-        doctypePending = new Token.Doctype();
+        doctypePending = doctypeInstance.reset();
     }
 
     void emitDoctypePending() {
@@ -187,15 +209,18 @@ class Tokeniser {
     }
 
     void createTempBuffer() {
-        dataBuffer = new StringBuilder();
+        if (dataBuffer == null)
+            dataBuffer = new StringBuilder();
+        else
+            dataBuffer.setLength(0);
     }
 
     boolean isAppropriateEndTagToken() {
-        return tagPending.tagName.equals(lastStartTag.tagName);
+        return tagPending.tagName.equals(lastStartTag);
     }
 
     String appropriateEndTagName() {
-        return lastStartTag.tagName;
+        return lastStartTag;
     }
 
     boolean isTrackErrors() {
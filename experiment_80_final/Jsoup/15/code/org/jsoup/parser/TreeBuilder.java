@@ -4,11 +4,15 @@ import org.jsoup.helper.DescendableLinkedList;
 import org.jsoup.helper.StringUtil;
 import org.jsoup.helper.Validate;
 import org.jsoup.nodes.*;
+import org.jsoup.select.Evaluator;
 
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * HTML Tree Builder; creates a DOM from Tokens.
@@ -37,26 +41,85 @@ class TreeBuilder {
     private boolean trackErrors = false;
     private List<ParseError> errors = new ArrayList<ParseError>();
 
+    private Evaluator retainFilter; // if set, only elements that match, their contents and ancestors are kept
+    private List<Element> closedElements; // elements taken off the stack, to be filtered once the token is processed
+    private Map<Element, Element> matchedOpenElements; // elements that matched the filter when inserted
+
     TreeBuilder() {}
 
-    private void initialiseParse(String input, String baseUri) {
+    /**
+     Create a TreeBuilder that discards elements that do not match the filter (and that contain no matches) as they
+     are closed, so that only matching subtrees and their ancestors are built.
+     @param retainFilter filter for elements to keep
+     */
+    TreeBuilder(Evaluator retainFilter) {
+        Validate.notNull(retainFilter);
+        this.retainFilter = retainFilter;
+    }
+
+    private void initialiseParse(CharacterReader input, String baseUri) {
+        reset();
         doc = new Document(baseUri);
-        reader = new CharacterReader(input);
-        tokeniser = new Tokeniser(reader);
-        stack = new DescendableLinkedList<Element>();
+        reader = input;
+        if (tokeniser == null)
+            tokeniser = new Tokeniser(reader);
+        else
+            tokeniser.reset(reader);
+        if (stack == null)
+            stack = retainFilter == null ? new DescendableLinkedList<Element>() : new FilteringStack();
+        if (retainFilter != null && closedElements == null) {
+            closedElements = new ArrayList<Element>();
+            matchedOpenElements = new IdentityHashMap<Element, Element>();
+        }
         this.baseUri = baseUri;
     }
 
+    /**
+     Clear the state of the last parse, so this builder can be reused. Keeps the tokeniser and collections.
+     */
+    void reset() {
+        state = null;
+        originalState = null;
+        doc = null;
+        if (stack != null)
+            stack.clear();
+        baseUri = null;
+        currentToken = null;
+        headElement = null;
+        formElement = null;
+        contextElement = null;
+        formattingElements.clear();
+        pendingTableCharacters.clear();
+        framesetOk = true;
+        fosterInserts = false;
+        fragmentParsing = false;
+        errors.clear();
+        if (closedElements != null) {
+            closedElements.clear();
+            matchedOpenElements.clear();
+        }
+        if (tokeniser != null)
+            tokeniser.reset(reader);
+    }
+
     Document parse(String input, String baseUri) {
-        state = TreeBuilderState.Initial;
+        return parse(new CharacterReader(input), baseUri);
+    }
+
+    Document parse(Reader input, String baseUri) {
+        return parse(new CharacterReader(input), baseUri);
+    }
+
+    Document parse(CharacterReader input, String baseUri) {
         initialiseParse(input, baseUri);
+        state = TreeBuilderState.Initial;
         runParser();
         return doc;
     }
 
     List<Node> parseFragment(String inputFragment, Element context, String baseUri) {
         // context may be null
-        initialiseParse(inputFragment, baseUri);
+        initialiseParse(new CharacterReader(inputFragment), baseUri);
         contextElement = context;
         fragmentParsing = true;
         Element root = null;
@@ -100,10 +163,14 @@ class TreeBuilder {
 
             Token token = tokeniser.read();
             process(token);
+            if (retainFilter != null)
+                filterClosedElements();
 
             if (token.type == Token.TokenType.EOF)
                 break;
         }
+        if (retainFilter != null)
+            filterOpenElements();
     }
 
     boolean process(Token token) {
@@ -192,12 +259,16 @@ class TreeBuilder {
     void insert(Element el) {
         insertNode(el);
         stack.add(el);
+        if (retainFilter != null && retainFilter.matches(doc, el))
+            matchedOpenElements.put(el, el);
     }
 
     Element insertEmpty(Token.StartTag startTag) {
         Tag tag = Tag.valueOf(startTag.name());
         Element el = new Element(tag, baseUri, startTag.attributes);
         insertNode(el);
+        if (retainFilter != null)
+            closedElements.add(el); // never goes on the stack
         if (startTag.isSelfClosing()) {
             tokeniser.acknowledgeSelfClosingFlag();
             if (!tag.isKnownTag()) // unknown tag, remember this is self closing for output
@@ -688,6 +759,106 @@ class TreeBuilder {
             fosterParent.appendChild(in);
     }
 
+    // filtered parse: elements are kept or discarded as they are closed, innermost first.
+    private void filterClosedElements() {
+        for (Element el : closedElements)
+            retainOrDiscard(el, false);
+        closedElements.clear();
+    }
+
+    private void filterOpenElements() {
+        Iterator<Element> it = stack.descendingIterator();
+        while (it.hasNext()) {
+            Element el = it.next();
+            retainOrDiscard(el, StringUtil.in(el.nodeName(), "html", "head", "body"));
+        }
+    }
+
+    private void retainOrDiscard(Element el, boolean keepShell) {
+        if (el.parent() == null)
+            return; // already removed from the tree
+        boolean matchedOpen = matchedOpenElements.remove(el) != null;
+        if (matchedOpen || retainFilter.matches(doc, el) || hasMatchedOpenAncestor(el))
+            return; // keep all of it
+
+        boolean isAncestor = keepShell;
+        for (Node child : el.childNodes()) {
+            if (child instanceof Element) { // children have been filtered already, so any left hold matches
+                isAncestor = true;
+                break;
+            }
+        }
+        if (isAncestor) {
+            List<Node> childNodes = el.childNodes();
+            for (int i = childNodes.size() - 1; i >= 0; i--) {
+                Node child = childNodes.get(i);
+                if (!(child instanceof Element))
+                    child.remove();
+            }
+        } else {
+            el.remove();
+        }
+    }
+
+    private boolean hasMatchedOpenAncestor(Element el) {
+        if (matchedOpenElements.isEmpty())
+            return false;
+        for (Element parent = el.parent(); parent != null; parent = parent.parent()) {
+            if (matchedOpenElements.containsKey(parent))
+                return true;
+        }
+        return false;
+    }
+
+    // the stack of open elements for a filtered parse, which notes the elements closed by being removed from it
+    private class FilteringStack extends DescendableLinkedList<Element> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Element removeLast() {
+            Element el = super.removeLast();
+            closedElements.add(el);
+            return el;
+        }
+
+        @Override
+        public Element remove(int index) {
+            Element el = super.remove(index);
+            closedElements.add(el);
+            return el;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            boolean removed = super.remove(o);
+            if (removed)
+                closedElements.add((Element) o);
+            return removed;
+        }
+
+        @Override
+        public Iterator<Element> descendingIterator() {
+            final Iterator<Element> it = super.descendingIterator();
+            return new Iterator<Element>() {
+                private Element current;
+
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                public Element next() {
+                    current = it.next();
+                    return current;
+                }
+
+                public void remove() {
+                    it.remove();
+                    closedElements.add(current);
+                }
+            };
+        }
+    }
+
     @Override
     public String toString() {
         return "TreeBuilder{" +
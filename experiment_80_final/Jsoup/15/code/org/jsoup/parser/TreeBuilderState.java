@@ -908,7 +908,7 @@ enum TreeBuilderState {
                         tb.error(this);
                         return false;
                     } else {
-                        tb.getPendingTableCharacters().add(c);
+                        tb.getPendingTableCharacters().add(new Token.Character(c.getData())); // token is reused by tokeniser
                     }
                     break;
                 default:
@@ -1,9 +1,13 @@
 package org.jsoup.safety;
 
+import org.jsoup.UncheckedIOException;
 import org.jsoup.helper.Validate;
 import org.jsoup.nodes.*;
+import org.jsoup.parser.Parser;
 import org.jsoup.parser.Tag;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
 
 /**
@@ -17,17 +21,39 @@ import java.util.List;
  canned white-lists only allow body contained tags.
  <p/>
  Rather than interacting directly with a Cleaner object, generally see the {@code clean} methods in {@link org.jsoup.Jsoup}.
+ <p/>
+ A cleaner created from a {@link CompiledWhitelist} is immutable, and can be shared between threads to clean many
+ documents.
  */
 public class Cleaner {
-    private Whitelist whitelist;
+    private final Whitelist whitelist; // live whitelist, compiled (and cached) per clean; or null if fixed
+    private final CompiledWhitelist compiled;
 
     /**
-     Create a new cleaner, that sanitizes documents using the supplied whitelist.
+     Create a new cleaner, that sanitizes documents using the supplied whitelist. Changes made to the whitelist are seen
+     by later cleans.
      @param whitelist white-list to clean with
      */
     public Cleaner(Whitelist whitelist) {
         Validate.notNull(whitelist);
         this.whitelist = whitelist;
+        this.compiled = null;
+    }
+
+    /**
+     Create a new cleaner, that sanitizes documents using the supplied compiled whitelist. The cleaner may be shared
+     between threads.
+     @param whitelist compiled white-list to clean with
+     @see Whitelist#compile()
+     */
+    public Cleaner(CompiledWhitelist whitelist) {
+        Validate.notNull(whitelist);
+        this.whitelist = null;
+        this.compiled = whitelist;
+    }
+
+    private CompiledWhitelist policy() {
+        return whitelist != null ? whitelist.compile() : compiled;
     }
 
     /**
@@ -40,11 +66,59 @@ public class Cleaner {
         Validate.notNull(dirtyDocument);
 
         Document clean = Document.createShell(dirtyDocument.baseUri());
-        copySafeNodes(dirtyDocument.body(), clean.body());
+        copySafeNodes(policy(), dirtyDocument.body(), clean.body());
 
         return clean;
     }
 
+    /**
+     Cleans untrusted body HTML straight to an output, in a single pass: the whitelist is applied to the HTML as it is
+     tokenised (see {@link Parser#parseEvents(String, org.jsoup.parser.ParseHandler)}), without building a dirty or a
+     clean document. The output is the same as the cleaned document's {@code body().html()}, for HTML that the parser
+     does not need to restructure. Misnested formatting elements, content misplaced in tables, and implied elements
+     like {@code tbody} are not fixed up, but the output still only contains whitelisted tags and attributes.
+     @param bodyHtml untrusted body HTML to clean
+     @param baseUri URL to resolve relative URLs against
+     @param out sink to write the safe HTML to. It is not flushed or closed.
+     @throws IOException if the sink throws an exception on append
+     */
+    public void clean(String bodyHtml, String baseUri, Appendable out) throws IOException {
+        Validate.notNull(bodyHtml);
+        Validate.notNull(baseUri);
+        Validate.notNull(out);
+
+        CleaningHandler handler = new CleaningHandler(policy(), baseUri, out);
+        try {
+            Parser.parseEvents(bodyHtml, handler);
+        } catch (UncheckedIOException e) {
+            throw e.ioException();
+        }
+        handler.finish();
+    }
+
+    /**
+     Cleans untrusted body HTML straight to an output, in a single pass, streaming the input from a Reader. Memory use
+     is bounded by the nesting depth of the input, not its size.
+     @param bodyHtml reader of untrusted body HTML to clean. It is read to the end, but not closed.
+     @param baseUri URL to resolve relative URLs against
+     @param out sink to write the safe HTML to. It is not flushed or closed.
+     @throws IOException if the reader or the sink throws an exception
+     @see #clean(String, String, Appendable)
+     */
+    public void clean(Reader bodyHtml, String baseUri, Appendable out) throws IOException {
+        Validate.notNull(bodyHtml);
+        Validate.notNull(baseUri);
+        Validate.notNull(out);
+
+        CleaningHandler handler = new CleaningHandler(policy(), baseUri, out);
+        try {
+            Parser.parseEvents(bodyHtml, handler);
+        } catch (UncheckedIOException e) {
+            throw e.ioException();
+        }
+        handler.finish();
+    }
+
     /**
      Dertmines if the input document is valid, against the whitelist. It is considered valid if all the tags and attributes
      in the input HTML are allowed by the whitelist.
@@ -56,20 +130,70 @@ public class Cleaner {
      @return true if no tags or attributes need to be removed; false if they do
      */
     public boolean isValid(Document dirtyDocument) {
+        return validate(dirtyDocument) == null;
+    }
+
+    /**
+     Finds the first reason, in document order, that the input document is not valid against the whitelist. The
+     document is checked in place without building a cleaned copy, and the check stops at the first tag or attribute
+     that would be removed, so an invalid document is usually rejected quickly.
+     @param dirtyDocument document to test
+     @return the first violation found, or null if the document is valid
+     @see #isValid(Document)
+     */
+    public Violation validate(Document dirtyDocument) {
         Validate.notNull(dirtyDocument);
 
-        Document clean = Document.createShell(dirtyDocument.baseUri());
-        int numDiscarded = copySafeNodes(dirtyDocument.body(), clean.body());
-        return numDiscarded == 0;
+        CompiledWhitelist policy = policy();
+        Element root = dirtyDocument.body();
+        Node node = root.childNodeSize() > 0 ? root.childNode(0) : null;
+        while (node != null) { // iterative, so deep nesting can't overflow the stack
+            if (node instanceof Element) {
+                Element el = (Element) node;
+                Violation violation = validate(policy, el);
+                if (violation != null)
+                    return violation;
+                if (el.childNodeSize() > 0) {
+                    node = el.childNode(0);
+                    continue;
+                }
+            }
+            while (node.nextSibling() == null) {
+                node = node.parent();
+                if (node == root)
+                    return null;
+            }
+            node = node.nextSibling();
+        }
+        return null;
+    }
+
+    private Violation validate(CompiledWhitelist policy, Element el) {
+        String tagName = el.tagName();
+        CompiledWhitelist.TagPolicy tag = policy.tag(tagName);
+        if (tag == null)
+            return new Violation(el, null, "Tag <" + tagName + "> is not allowed");
+
+        for (Attribute attr : el.attributes()) {
+            String key = attr.getKey();
+            if (policy.safeValue(tag, key, attr.getValue(), el.baseUri()) == null) {
+                String message = policy.isSafeKey(tag, key) ?
+                        "URL protocol of attribute " + key + " on <" + tagName + "> is not allowed: " + attr.getValue() :
+                        "Attribute " + key + " on <" + tagName + "> is not allowed";
+                return new Violation(el, key, message);
+            }
+        }
+        return null;
     }
 
     /**
      Iterates the input and copies trusted nodes (tags, attributes, text) into the destination.
+     @param policy whitelist policy to test against
      @param source source of HTML
      @param dest destination element to copy into
      @return number of discarded elements (that were considered unsafe)
      */
-    private int copySafeNodes(Element source, Element dest) {
+    private int copySafeNodes(CompiledWhitelist policy, Element source, Element dest) {
         List<Node> sourceChildren = source.childNodes();
         int numDiscarded = 0;
 
@@ -77,16 +201,17 @@ public class Cleaner {
             if (sourceChild instanceof Element) {
                 Element sourceEl = (Element) sourceChild;
 
-                if (whitelist.isSafeTag(sourceEl.tagName())) { // safe, clone and copy safe attrs
-                    ElementMeta meta = createSafeElement(sourceEl);
+                CompiledWhitelist.TagPolicy tag = policy.tag(sourceEl.tagName());
+                if (tag != null) { // safe, clone and copy safe attrs
+                    ElementMeta meta = createSafeElement(policy, tag, sourceEl);
                     Element destChild = meta.el;
                     dest.appendChild(destChild);
 
                     numDiscarded += meta.numAttribsDiscarded;
-                    numDiscarded += copySafeNodes(sourceEl, destChild); // recurs
+                    numDiscarded += copySafeNodes(policy, sourceEl, destChild); // recurs
                 } else { // not a safe tag, but it may have children (els or text) that are, so recurse
                     numDiscarded++;
-                    numDiscarded += copySafeNodes(sourceEl, dest);
+                    numDiscarded += copySafeNodes(policy, sourceEl, dest);
                 }
             } else if (sourceChild instanceof TextNode) {
                 TextNode sourceText = (TextNode) sourceChild;
@@ -97,7 +222,7 @@ public class Cleaner {
         return numDiscarded;
     }
 
-    private ElementMeta createSafeElement(Element sourceEl) {
+    private ElementMeta createSafeElement(CompiledWhitelist policy, CompiledWhitelist.TagPolicy tag, Element sourceEl) {
         String sourceTag = sourceEl.tagName();
         Attributes destAttrs = new Attributes();
         Element dest = new Element(Tag.valueOf(sourceTag), sourceEl.baseUri(), destAttrs);
@@ -105,13 +230,13 @@ public class Cleaner {
 
         Attributes sourceAttrs = sourceEl.attributes();
         for (Attribute sourceAttr : sourceAttrs) {
-            if (whitelist.isSafeAttribute(sourceTag, sourceEl, sourceAttr))
-                destAttrs.put(sourceAttr);
+            String value = policy.safeValue(tag, sourceAttr.getKey(), sourceAttr.getValue(), sourceEl.baseUri());
+            if (value != null)
+                destAttrs.put(sourceAttr.getKey(), value);
             else
                 numDiscarded++;
         }
-        Attributes enforcedAttrs = whitelist.getEnforcedAttributes(sourceTag);
-        destAttrs.addAll(enforcedAttrs);
+        destAttrs.addAll(tag.enforcedAttributes());
 
         return new ElementMeta(dest, numDiscarded);
     }
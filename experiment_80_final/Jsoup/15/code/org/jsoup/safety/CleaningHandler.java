@@ -0,0 +1,192 @@
+package org.jsoup.safety;
+
+import org.jsoup.UncheckedIOException;
+import org.jsoup.helper.StringUtil;
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Attributes;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Entities;
+import org.jsoup.parser.ParseHandler;
+import org.jsoup.parser.Tag;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ Applies a whitelist to parse events, writing the safe HTML straight to an output, as the inner HTML of the body of a
+ cleaned document would be serialised. Unsafe elements are dropped but their contents kept, and comments and data
+ (script and style contents) are dropped, as {@link Cleaner#clean(org.jsoup.nodes.Document)} does.
+ <p/>
+ Only the stack of open elements is held, so memory is bounded by the nesting depth of the input, not its size.
+ */
+class CleaningHandler extends ParseHandler {
+    private final CompiledWhitelist policy;
+    private final String baseUri;
+    private final Document.OutputSettings out;
+    private final Output accum;
+    private final ArrayList<Frame> stack = new ArrayList<Frame>(32); // open elements; null for a dropped element
+    private Frame current; // the innermost open safe element, or the body
+
+    CleaningHandler(CompiledWhitelist policy, String baseUri, Appendable appendable) {
+        this.policy = policy;
+        this.baseUri = baseUri;
+        this.out = new Document(baseUri).outputSettings();
+        this.accum = new Output(appendable);
+        this.current = new Frame(Tag.valueOf("body"), null, -1); // children of the body are serialised at depth 0
+    }
+
+    @Override
+    public void startTag(String tagName, Attributes attributes) {
+        CompiledWhitelist.TagPolicy tagPolicy = policy.tag(tagName);
+        if (tagPolicy == null) { // not a safe tag, but it may have children (els or text) that are
+            stack.add(null);
+            return;
+        }
+
+        Attributes safeAttrs = new Attributes();
+        for (Attribute attr : attributes) {
+            String value = policy.safeValue(tagPolicy, attr.getKey(), attr.getValue(), baseUri);
+            if (value != null)
+                safeAttrs.put(attr.getKey(), value);
+        }
+        safeAttrs.addAll(tagPolicy.enforcedAttributes());
+
+        Frame parent = current;
+        Frame frame = new Frame(Tag.valueOf(tagName), parent, parent.depth + 1);
+        try {
+            parent.addChild();
+            if (accum.hasOutput() && out.prettyPrint() && (frame.tag.formatAsBlock() || parent.tag.formatAsBlock()))
+                indent(frame.depth);
+            accum.append("<").append(frame.tag.getName()).append(safeAttrs.html());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        stack.add(frame);
+        current = frame;
+    }
+
+    @Override
+    public void endTag(String tagName) {
+        if (stack.isEmpty())
+            return;
+        Frame frame = stack.remove(stack.size() - 1);
+        if (frame == null)
+            return;
+
+        try {
+            if (!frame.hasChildren) {
+                if (frame.tag.isSelfClosing())
+                    accum.append(" />");
+                else
+                    accum.append("></").append(frame.tag.getName()).append(">");
+            } else {
+                if (out.prettyPrint() && frame.tag.formatAsBlock())
+                    indent(frame.depth);
+                accum.append("</").append(frame.tag.getName()).append(">");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        current = frame.parent;
+    }
+
+    @Override
+    public void text(String text) {
+        Frame parent = current;
+        boolean first = !parent.hasChildren;
+        String html = Entities.escape(text, out);
+        if (out.prettyPrint() && !parent.preserveWhitespace)
+            html = StringUtil.normaliseWhitespace(html);
+
+        try {
+            parent.addChild();
+            if (out.prettyPrint() && first && parent.tag.formatAsBlock() && !StringUtil.isBlank(text))
+                indent(parent.depth + 1);
+            accum.append(html);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void finish() throws IOException {
+        accum.finish();
+    }
+
+    private void indent(int depth) throws IOException {
+        accum.append("\n").append(StringUtil.padding(depth * out.indentAmount()));
+    }
+
+    // an open safe element, as it would be in the cleaned document
+    private class Frame {
+        final Tag tag;
+        final Frame parent;
+        final int depth;
+        final boolean preserveWhitespace;
+        boolean hasChildren = false; // once set, the start tag has been closed with '>'
+
+        Frame(Tag tag, Frame parent, int depth) {
+            this.tag = tag;
+            this.parent = parent;
+            this.depth = depth;
+            this.preserveWhitespace = tag.preserveWhitespace() || parent != null && parent.preserveWhitespace;
+        }
+
+        // the start tag is held open until it's known if the element is empty, which is serialised as <br />
+        void addChild() throws IOException {
+            if (!hasChildren && parent != null)
+                accum.append(">");
+            hasChildren = true;
+        }
+    }
+
+    /**
+     Trims leading and trailing whitespace from the output, as Element.html() does; trailing whitespace is held back
+     until it's known not to be the end.
+     */
+    private static class Output {
+        private final Appendable sink;
+        private final StringBuilder whitespace = new StringBuilder();
+        private boolean hasOutput = false; // if anything has been appended, including whitespace that was trimmed
+        private boolean written = false; // if anything has been written to the sink
+
+        Output(Appendable sink) {
+            this.sink = sink;
+        }
+
+        boolean hasOutput() {
+            return hasOutput;
+        }
+
+        Output append(String str) throws IOException {
+            int len = str.length();
+            if (len == 0)
+                return this;
+            hasOutput = true;
+
+            int start = 0;
+            if (!written) {
+                while (start < len && str.charAt(start) <= ' ')
+                    start++;
+            }
+            int end = len;
+            while (end > start && str.charAt(end - 1) <= ' ')
+                end--;
+
+            if (end > start) {
+                if (whitespace.length() > 0) {
+                    sink.append(whitespace);
+                    whitespace.setLength(0);
+                }
+                sink.append(str, start, end);
+                written = true;
+            }
+            if (written)
+                whitespace.append(str, end, len);
+            return this;
+        }
+
+        void finish() {
+            whitespace.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.jsoup.safety;
+
+import org.jsoup.helper.StringUtil;
+import org.jsoup.nodes.Attributes;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ An immutable snapshot of a {@link Whitelist}'s policy, flattened for fast lookup: each safe tag maps straight to its
+ allowed attributes (as a bitset over attribute ids), its URL protocols, and its prepared enforced attributes, so
+ checking an element needs no wrapper objects or nested map probes.
+ <p/>
+ A compiled whitelist is safe to share between threads, as is a {@link Cleaner} that uses it. Get one with {@link
+ Whitelist#compile()}; later changes to the whitelist are not reflected in a compiled snapshot.
+ */
+public final class CompiledWhitelist {
+    private static final String allTags = ":all";
+
+    private final Map<String, Integer> attributeIds; // attribute key -> id, across all tags
+    private final Map<String, TagPolicy> tags; // safe tags only
+    private final TagPolicy all; // attributes allowed on any tag that has none of its own; null if none
+
+    CompiledWhitelist(Set<Whitelist.TagName> tagNames, Map<Whitelist.TagName, Set<Whitelist.AttributeKey>> attributes,
+                      Map<Whitelist.TagName, Map<Whitelist.AttributeKey, Whitelist.AttributeValue>> enforcedAttributes,
+                      Map<Whitelist.TagName, Map<Whitelist.AttributeKey, Set<Whitelist.Protocol>>> protocols) {
+        attributeIds = new HashMap<String, Integer>();
+        for (Set<Whitelist.AttributeKey> keys : attributes.values()) {
+            for (Whitelist.AttributeKey key : keys) {
+                if (!attributeIds.containsKey(key.toString()))
+                    attributeIds.put(key.toString(), attributeIds.size());
+            }
+        }
+
+        tags = new HashMap<String, TagPolicy>(tagNames.size() * 2);
+        for (Whitelist.TagName tagName : tagNames)
+            tags.put(tagName.toString(), policy(tagName, attributes, enforcedAttributes, protocols));
+
+        Whitelist.TagName allName = Whitelist.TagName.valueOf(allTags);
+        all = attributes.containsKey(allName) ? policy(allName, attributes, enforcedAttributes, protocols) : null;
+    }
+
+    private TagPolicy policy(Whitelist.TagName tagName, Map<Whitelist.TagName, Set<Whitelist.AttributeKey>> attributes,
+                             Map<Whitelist.TagName, Map<Whitelist.AttributeKey, Whitelist.AttributeValue>> enforcedAttributes,
+                             Map<Whitelist.TagName, Map<Whitelist.AttributeKey, Set<Whitelist.Protocol>>> protocols) {
+        BitSet allowed = null;
+        String[][] prefixes = null;
+        Set<Whitelist.AttributeKey> keys = attributes.get(tagName);
+        if (keys != null) {
+            allowed = new BitSet(attributeIds.size());
+            for (Whitelist.AttributeKey key : keys)
+                allowed.set(attributeIds.get(key.toString()));
+
+            Map<Whitelist.AttributeKey, Set<Whitelist.Protocol>> attrProts = protocols.get(tagName);
+            if (attrProts != null) {
+                prefixes = new String[attributeIds.size()][];
+                for (Map.Entry<Whitelist.AttributeKey, Set<Whitelist.Protocol>> entry : attrProts.entrySet()) {
+                    Integer id = attributeIds.get(entry.getKey().toString());
+                    if (id == null)
+                        continue; // protocols for an attribute that isn't allowed anywhere
+                    String[] prots = new String[entry.getValue().size()];
+                    int i = 0;
+                    for (Whitelist.Protocol protocol : entry.getValue())
+                        prots[i++] = protocol.toString() + ":";
+                    prefixes[id] = prots;
+                }
+            }
+        }
+
+        Attributes enforced = new Attributes();
+        Map<Whitelist.AttributeKey, Whitelist.AttributeValue> keyVals = enforcedAttributes.get(tagName);
+        if (keyVals != null) {
+            for (Map.Entry<Whitelist.AttributeKey, Whitelist.AttributeValue> entry : keyVals.entrySet())
+                enforced.put(entry.getKey().toString(), entry.getValue().toString());
+        }
+        return new TagPolicy(allowed, prefixes, enforced);
+    }
+
+    /**
+     Get the policy for a tag.
+     @param tagName (lower case) tag name
+     @return the tag's policy if it is a safe tag, or null if it must be removed
+     */
+    TagPolicy tag(String tagName) {
+        return tags.get(tagName);
+    }
+
+    /**
+     Get the value a safe attribute should be output with. URL attributes with defined protocols are resolved to
+     absolute URLs (relative URLs without a base URI are removed).
+     @param tag the element's tag policy
+     @param key (lower case) attribute key
+     @param value attribute value
+     @param baseUri the element's base URI, to resolve relative URLs against
+     @return the value to keep, or null if the attribute must be removed
+     */
+    String safeValue(TagPolicy tag, String key, String value, String baseUri) {
+        TagPolicy policy = tag.allowed != null ? tag : all; // tags with no attributes of their own fall back to :all
+        Integer id = attributeIds.get(key);
+        if (policy == null || id == null || !policy.allowed.get(id))
+            return null;
+
+        String[] prots = policy.prefixes == null ? null : policy.prefixes[id];
+        if (prots == null) // attribute found, no protocols defined, so OK
+            return value;
+
+        String abs = StringUtil.resolve(baseUri, value);
+        String lower = abs.toLowerCase();
+        for (String prot : prots) {
+            if (lower.startsWith(prot))
+                return abs;
+        }
+        return null;
+    }
+
+    /**
+     Test if an attribute key is allowed on a tag, regardless of its value.
+     @param tag the element's tag policy
+     @param key (lower case) attribute key
+     @return true if the key is allowed
+     */
+    boolean isSafeKey(TagPolicy tag, String key) {
+        TagPolicy policy = tag.allowed != null ? tag : all;
+        Integer id = attributeIds.get(key);
+        return policy != null && id != null && policy.allowed.get(id);
+    }
+
+    /**
+     A safe tag's policy.
+     */
+    static final class TagPolicy {
+        private final BitSet allowed; // allowed attribute ids; null if the tag has no attributes defined
+        private final String[][] prefixes; // by attribute id, allowed URL prefixes ("http:"); null if unrestricted
+        private final Attributes enforced; // never modified once compiled; only read by addAll
+
+        TagPolicy(BitSet allowed, String[][] prefixes, Attributes enforced) {
+            this.allowed = allowed;
+            this.prefixes = prefixes;
+            this.enforced = enforced;
+        }
+
+        /**
+         Get the attributes that are always set on this tag. Must not be modified.
+         */
+        Attributes enforcedAttributes() {
+            return enforced;
+        }
+    }
+}
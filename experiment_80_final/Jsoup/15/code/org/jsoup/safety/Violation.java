@@ -0,0 +1,50 @@
+package org.jsoup.safety;
+
+import org.jsoup.nodes.Element;
+
+/**
+ A reason that a document is not valid against a whitelist: an element whose tag is not allowed, or an allowed element
+ with an attribute that is not allowed (or a URL attribute with a protocol that is not allowed).
+
+ @see Cleaner#validate(org.jsoup.nodes.Document)
+ */
+public class Violation {
+    private final Element element;
+    private final String attributeKey;
+    private final String message;
+
+    Violation(Element element, String attributeKey, String message) {
+        this.element = element;
+        this.attributeKey = attributeKey;
+        this.message = message;
+    }
+
+    /**
+     Get the element that is not allowed, or that has the attribute that is not allowed.
+     @return the element, in the dirty document
+     */
+    public Element getElement() {
+        return element;
+    }
+
+    /**
+     Get the key of the attribute that is not allowed.
+     @return the attribute key, or null if the element's tag itself is not allowed
+     */
+    public String getAttributeKey() {
+        return attributeKey;
+    }
+
+    /**
+     Get a description of the violation, e.g. <code>Tag &lt;script> is not allowed</code>.
+     @return the description
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return message;
+    }
+}
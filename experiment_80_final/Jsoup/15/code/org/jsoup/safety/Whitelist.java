@@ -6,9 +6,6 @@ package org.jsoup.safety;
  */
 
 import org.jsoup.helper.Validate;
-import org.jsoup.nodes.Attribute;
-import org.jsoup.nodes.Attributes;
-import org.jsoup.nodes.Element;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -52,6 +49,7 @@ public class Whitelist {
     private Map<TagName, Set<AttributeKey>> attributes; // tag -> attribute[]. allowed attributes [href] for a tag.
     private Map<TagName, Map<AttributeKey, AttributeValue>> enforcedAttributes; // always set these attribute values
     private Map<TagName, Map<AttributeKey, Set<Protocol>>> protocols; // allowed URL protocols for attributes
+    private volatile CompiledWhitelist compiled; // cached by compile(); dropped on change
 
     /**
      This whitelist allows only text nodes: all HTML will be stripped.
@@ -180,6 +178,7 @@ public class Whitelist {
      @return this (for chaining)
      */
     public Whitelist addTags(String... tags) {
+        compiled = null;
         Validate.notNull(tags);
 
         for (String tagName : tags) {
@@ -200,6 +199,7 @@ public class Whitelist {
      @return this (for chaining)
      */
     public Whitelist addAttributes(String tag, String... keys) {
+        compiled = null;
         Validate.notEmpty(tag);
         Validate.notNull(keys);
 
@@ -231,6 +231,7 @@ public class Whitelist {
      @return this (for chaining)
      */
     public Whitelist addEnforcedAttribute(String tag, String key, String value) {
+        compiled = null;
         Validate.notEmpty(tag);
         Validate.notEmpty(key);
         Validate.notEmpty(value);
@@ -261,6 +262,7 @@ public class Whitelist {
      @return this, for chaining
      */
     public Whitelist addProtocols(String tag, String key, String... protocols) {
+        compiled = null;
         Validate.notEmpty(tag);
         Validate.notEmpty(key);
         Validate.notNull(protocols);
@@ -290,57 +292,23 @@ public class Whitelist {
         return this;
     }
 
-    boolean isSafeTag(String tag) {
-        return tagNames.contains(TagName.valueOf(tag));
-    }
-
-    boolean isSafeAttribute(String tagName, Element el, Attribute attr) {
-        TagName tag = TagName.valueOf(tagName);
-        AttributeKey key = AttributeKey.valueOf(attr.getKey());
-
-        if (attributes.containsKey(tag)) {
-            if (attributes.get(tag).contains(key)) {
-                if (protocols.containsKey(tag)) {
-                    Map<AttributeKey, Set<Protocol>> attrProts = protocols.get(tag);
-                    // ok if not defined protocol; otherwise test
-                    return !attrProts.containsKey(key) || testValidProtocol(el, attr, attrProts.get(key));
-                } else { // attribute found, no protocols defined, so OK
-                    return true;
-                }
-            }
-        } else { // no attributes defined for tag, try :all tag
-            return !tagName.equals(":all") && isSafeAttribute(":all", el, attr);
-        }
-        return false;
-    }
+    /**
+     Compile this whitelist into an immutable, flattened policy, for fast and thread-safe cleaning. The compiled policy
+     is cached until this whitelist is next modified, so repeated calls are cheap.
+     <p/>
+     E.g.: <code>Cleaner cleaner = new Cleaner(Whitelist.basic().compile());</code> can be shared between threads.
 
-    private boolean testValidProtocol(Element el, Attribute attr, Set<Protocol> protocols) {
-        // resolve relative urls to abs, and update the attribute so output html has abs.
-        // rels without a baseuri get removed
-        String value = el.absUrl(attr.getKey());
-        attr.setValue(value);
-        
-        for (Protocol protocol : protocols) {
-            String prot = protocol.toString() + ":";
-            if (value.toLowerCase().startsWith(prot)) {
-                return true;
-            }
+     @return a compiled snapshot of this whitelist
+     */
+    public CompiledWhitelist compile() {
+        CompiledWhitelist compiled = this.compiled;
+        if (compiled == null) {
+            compiled = new CompiledWhitelist(tagNames, attributes, enforcedAttributes, protocols);
+            this.compiled = compiled;
         }
-        return false;
+        return compiled;
     }
 
-    Attributes getEnforcedAttributes(String tagName) {
-        Attributes attrs = new Attributes();
-        TagName tag = TagName.valueOf(tagName);
-        if (enforcedAttributes.containsKey(tag)) {
-            Map<AttributeKey, AttributeValue> keyVals = enforcedAttributes.get(tag);
-            for (Map.Entry<AttributeKey, AttributeValue> entry : keyVals.entrySet()) {
-                attrs.put(entry.getKey().toString(), entry.getValue().toString());
-            }
-        }
-        return attrs;
-    }
-    
     // named types for config. All just hold strings, but here for my sanity.
 
     static class TagName extends TypedValue {
@@ -3,6 +3,10 @@ package org.jsoup.select;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+
 /**
  * Collects a list of elements that match the supplied criteria.
  *
@@ -20,11 +24,105 @@ public class Collector {
      @return list of matches; empty if none
      */
     public static Elements collect (Evaluator eval, Element root) {
+        return collect(eval, root, root);
+    }
+
+    /**
+     Build a list of elements, as {@link #collect(Evaluator, Element)}, but evaluating the subtrees of a large tree in
+     parallel on the executor. The list is in document order. The tree must not be modified until the collection
+     completes.
+     @param eval Evaluator to test elements against
+     @param root root of tree to descend
+     @param executor executor to run subtree evaluations on. Must not be one whose threads are all busy waiting for
+     this call, or it will deadlock.
+     @return list of matches; empty if none
+     */
+    public static Elements collect(Evaluator eval, Element root, ExecutorService executor) {
+        return ParallelCollector.collect(eval, root, executor);
+    }
+
+    // collects the matches in a subtree of the root, evaluated relative to the root
+    static Elements collect(Evaluator eval, Element root, Element subtree) {
         Elements elements = new Elements();
-        new NodeTraversor(new Accumulator(root, elements, eval)).traverse(root);
+        new NodeTraversor(new Accumulator(root, elements, eval)).traverse(subtree);
         return elements;
     }
 
+    /**
+     Find the first element, in document order, that matches the evaluator. Stops at the first match rather than
+     visiting the whole tree.
+     @param eval Evaluator to test elements against
+     @param root root of tree to descend
+     @return the first match; or null if none
+     */
+    public static Element findFirst(Evaluator eval, Element root) {
+        MatchIterator it = new MatchIterator(eval, root);
+        return it.hasNext() ? it.next() : null;
+    }
+
+    /**
+     Iterate the elements that match the evaluator, in document order. The tree is searched lazily as the iterator is
+     advanced, so matches are not collected up front. The tree must not be modified during the iteration.
+     @param eval Evaluator to test elements against
+     @param root root of tree to descend
+     @return iterator of matches
+     */
+    public static Iterator<Element> iterate(Evaluator eval, Element root) {
+        return new MatchIterator(eval, root);
+    }
+
+    // walks the tree depth first (as NodeTraversor), pausing at each matched element
+    private static class MatchIterator implements Iterator<Element> {
+        private final Evaluator eval;
+        private final Element root;
+        private Node node; // last node visited; null before the start
+        private Element next; // the next match, if found
+        private boolean done = false;
+
+        MatchIterator(Evaluator eval, Element root) {
+            this.eval = eval;
+            this.root = root;
+        }
+
+        public boolean hasNext() {
+            while (next == null && !done) {
+                node = advance(node);
+                if (node == null)
+                    done = true;
+                else if (node instanceof Element && eval.matches(root, (Element) node))
+                    next = (Element) node;
+            }
+            return next != null;
+        }
+
+        public Element next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Element match = next;
+            next = null;
+            return match;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        // the node after this one in document order, within root; null when done
+        private Node advance(Node node) {
+            if (node == null)
+                return root;
+            if (node.childNodes().size() > 0)
+                return node.childNode(0);
+            while (node != root) {
+                Node sibling = node.nextSibling();
+                if (sibling != null)
+                    return sibling;
+                node = node.parent();
+            }
+            return null;
+        }
+    }
+
     private static class Accumulator implements NodeVisitor {
         private final Element root;
         private final Elements elements;
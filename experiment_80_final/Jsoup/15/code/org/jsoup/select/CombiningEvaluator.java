@@ -6,6 +6,8 @@ import org.jsoup.nodes.Element;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -24,18 +26,49 @@ abstract class CombiningEvaluator extends Evaluator {
         this.evaluators.addAll(evaluators);
     }
 
+    @Override
+    int cost() {
+        int cost = 0;
+        for (Evaluator evaluator : evaluators)
+            cost += evaluator.cost();
+        return cost;
+    }
+
+    private static final Comparator<Evaluator> costComparator = new Comparator<Evaluator>() {
+        public int compare(Evaluator o1, Evaluator o2) {
+            return o1.cost() - o2.cost();
+        }
+    };
+
     static final class And extends CombiningEvaluator {
+        private final Evaluator[] planned; // evaluators in the order to test them: cheapest first
+
         And(Collection<Evaluator> evaluators) {
             super(evaluators);
+            // the evaluators are independent tests, so may run in any order; a cheap failing test skips the costly ones
+            List<Evaluator> sorted = new ArrayList<Evaluator>(evaluators);
+            Collections.sort(sorted, costComparator); // stable, so equal costs keep query order
+            planned = sorted.toArray(new Evaluator[sorted.size()]);
         }
 
         And(Evaluator... evaluators) {
             this(Arrays.asList(evaluators));
         }
 
+        @Override
+        int cost() {
+            // the first evaluator always runs, but the rest only for the elements that pass it
+            if (planned.length == 0)
+                return 0;
+            int rest = 0;
+            for (int i = 1; i < planned.length; i++)
+                rest += planned[i].cost();
+            return planned[0].cost() + rest / 4;
+        }
+
         @Override
         public boolean matches(Element root, Element node) {
-            for (Evaluator s : evaluators) {
+            for (Evaluator s : planned) {
                 if (!s.matches(root, node))
                     return false;
             }
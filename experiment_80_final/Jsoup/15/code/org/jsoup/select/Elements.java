@@ -5,6 +5,7 @@ import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 /**
  A list of {@link Element Elements}, with methods that act on every element in the list.
@@ -400,6 +401,18 @@ public class Elements implements List<Element>, Cloneable {
         return Selector.select(query, this);
     }
 
+    /**
+     * Find matching elements within this element list, searching the elements in parallel on the executor. Results are
+     * in the same order as {@link #select(String)}.
+     * @param query A {@link Selector} query
+     * @param executor executor to search on
+     * @return the filtered list of elements, or an empty list if none match.
+     * @see Selector#select(String, Iterable, ExecutorService)
+     */
+    public Elements select(String query, ExecutorService executor) {
+        return Selector.select(query, this, executor);
+    }
+
     /**
      * Remove elements from this list that do not match the {@link Selector} query.
      * <p>
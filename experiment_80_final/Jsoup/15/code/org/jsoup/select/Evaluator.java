@@ -23,11 +23,20 @@ public abstract class Evaluator {
      */
     public abstract boolean matches(Element root, Element element);
 
+    /**
+     * The relative cost of evaluating this evaluator against an element, used to order the checks of an And so that
+     * cheap ones (like the tag name) can reject an element before costly ones (like text regexes) run.
+     * @return cost; a higher number is more costly
+     */
+    int cost() {
+        return 5;
+    }
+
     /**
      * Evaluator for tag name
      */
     public static final class Tag extends Evaluator {
-        private String tagName;
+        final String tagName;
 
         public Tag(String tagName) {
             this.tagName = tagName;
@@ -38,6 +47,11 @@ public abstract class Evaluator {
             return (element.tagName().equals(tagName));
         }
 
+        @Override
+        int cost() {
+            return 1; // tag name compare
+        }
+
         @Override
         public String toString() {
             return String.format("%s", tagName);
@@ -48,7 +62,7 @@ public abstract class Evaluator {
      * Evaluator for element id
      */
     public static final class Id extends Evaluator {
-        private String id;
+        final String id;
 
         public Id(String id) {
             this.id = id;
@@ -59,6 +73,11 @@ public abstract class Evaluator {
             return (id.equals(element.id()));
         }
 
+        @Override
+        int cost() {
+            return 2;
+        }
+
         @Override
         public String toString() {
             return String.format("#%s", id);
@@ -70,7 +89,7 @@ public abstract class Evaluator {
      * Evaluator for element class
      */
     public static final class Class extends Evaluator {
-        private String className;
+        final String className;
 
         public Class(String className) {
             this.className = className;
@@ -81,6 +100,11 @@ public abstract class Evaluator {
             return (element.hasClass(className));
         }
 
+        @Override
+        int cost() {
+            return 6; // splits the class attribute
+        }
+
         @Override
         public String toString() {
             return String.format(".%s", className);
@@ -103,6 +127,11 @@ public abstract class Evaluator {
             return element.hasAttr(key);
         }
 
+        @Override
+        int cost() {
+            return 2;
+        }
+
         @Override
         public String toString() {
             return String.format("[%s]", key);
@@ -130,6 +159,11 @@ public abstract class Evaluator {
             return false;
         }
 
+        @Override
+        int cost() {
+            return 6; // scans all attributes
+        }
+
         @Override
         public String toString() {
             return String.format("[^%s]", keyPrefix);
@@ -254,6 +288,11 @@ public abstract class Evaluator {
             return element.hasAttr(key) && pattern.matcher(element.attr(key)).find();
         }
 
+        @Override
+        int cost() {
+            return 8;
+        }
+
         @Override
         public String toString() {
             return String.format("[%s~=%s]", key, pattern.toString());
@@ -275,6 +314,11 @@ public abstract class Evaluator {
             this.key = key.trim().toLowerCase();
             this.value = value.trim().toLowerCase();
         }
+
+        @Override
+        int cost() {
+            return 3;
+        }
     }
 
     /**
@@ -287,6 +331,11 @@ public abstract class Evaluator {
             return true;
         }
 
+        @Override
+        int cost() {
+            return 1;
+        }
+
         @Override
         public String toString() {
             return "*";
@@ -364,6 +413,11 @@ public abstract class Evaluator {
         public IndexEvaluator(int index) {
             this.index = index;
         }
+
+        @Override
+        int cost() {
+            return 4; // counts the preceding siblings
+        }
     }
 
     /**
@@ -381,6 +435,11 @@ public abstract class Evaluator {
             return (element.text().toLowerCase().contains(searchText));
         }
 
+        @Override
+        int cost() {
+            return 10; // builds the descendant text
+        }
+
         @Override
         public String toString() {
             return String.format(":contains(%s", searchText);
@@ -402,6 +461,11 @@ public abstract class Evaluator {
             return (element.ownText().toLowerCase().contains(searchText));
         }
 
+        @Override
+        int cost() {
+            return 8;
+        }
+
         @Override
         public String toString() {
             return String.format(":containsOwn(%s", searchText);
@@ -424,6 +488,11 @@ public abstract class Evaluator {
             return m.find();
         }
 
+        @Override
+        int cost() {
+            return 12; // builds the descendant text
+        }
+
         @Override
         public String toString() {
             return String.format(":matches(%s", pattern);
@@ -446,6 +515,11 @@ public abstract class Evaluator {
             return m.find();
         }
 
+        @Override
+        int cost() {
+            return 9;
+        }
+
         @Override
         public String toString() {
             return String.format(":matchesOwn(%s", pattern);
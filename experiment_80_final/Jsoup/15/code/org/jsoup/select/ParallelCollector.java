@@ -0,0 +1,180 @@
+package org.jsoup.select;
+
+import org.jsoup.helper.Validate;
+import org.jsoup.nodes.Element;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ Collects matching elements by evaluating subtrees (or separate roots) as tasks on an executor. Results are merged in
+ document order, so match a sequential {@link Collector#collect(Evaluator, Element)}. Trees with fewer than {@link
+ #sequentialThreshold} elements are collected on the calling thread, as the task overhead would outweigh the gain.
+ <p/>
+ Evaluation only reads the tree, so the trees must not be modified while being collected.
+ */
+class ParallelCollector {
+    static final int sequentialThreshold = 10000; // elements
+    private static final int unitsPerProcessor = 4; // subtrees to split into, per processor, for load balancing
+
+    private ParallelCollector() {}
+
+    static Elements collect(Evaluator eval, Element root, ExecutorService executor) {
+        Validate.notNull(eval);
+        Validate.notNull(root);
+        Validate.notNull(executor);
+
+        List<Element> roots = new ArrayList<Element>(1);
+        roots.add(root);
+        if (!hasMoreElementsThan(roots, sequentialThreshold))
+            return Collector.collect(eval, root);
+
+        // split the tree into units: single elements (evaluated here, in place) and subtrees (evaluated as tasks).
+        // a subtree is split into its root and its children's subtrees until there are enough, preserving order. a
+        // chain of single children is descended in place in one go, as splitting it adds no subtrees.
+        int target = Runtime.getRuntime().availableProcessors() * unitsPerProcessor;
+        List<Unit> units = new ArrayList<Unit>();
+        units.add(new Unit(root, true));
+        int subtrees = 1;
+        boolean split = true;
+        while (split && subtrees < target) {
+            split = false;
+            List<Unit> next = new ArrayList<Unit>(units.size() * 2);
+            for (Unit unit : units) {
+                if (!unit.subtree) {
+                    next.add(unit);
+                    continue;
+                }
+                Element el = unit.el;
+                List<Element> children = el.children();
+                while (children.size() == 1) {
+                    next.add(new Unit(el, false));
+                    el = children.get(0);
+                    children = el.children();
+                }
+                if (children.isEmpty()) {
+                    next.add(new Unit(el, true));
+                } else {
+                    next.add(new Unit(el, false));
+                    for (Element child : children)
+                        next.add(new Unit(child, true));
+                    subtrees += children.size() - 1;
+                    split = true;
+                }
+            }
+            units = next;
+        }
+
+        List<Callable<Elements>> tasks = new ArrayList<Callable<Elements>>(subtrees);
+        for (Unit unit : units) {
+            if (unit.subtree)
+                tasks.add(new SubtreeTask(eval, root, unit.el));
+        }
+        List<Elements> results = invokeAll(executor, tasks);
+
+        Elements elements = new Elements();
+        int task = 0;
+        for (Unit unit : units) {
+            if (unit.subtree)
+                elements.addAll(results.get(task++));
+            else if (eval.matches(root, unit.el))
+                elements.add(unit.el);
+        }
+        return elements;
+    }
+
+    static List<Elements> collect(Evaluator eval, List<Element> roots, ExecutorService executor) {
+        Validate.notNull(eval);
+        Validate.notNull(executor);
+
+        List<Elements> results;
+        if (!hasMoreElementsThan(roots, sequentialThreshold)) {
+            results = new ArrayList<Elements>(roots.size());
+            for (Element root : roots)
+                results.add(Collector.collect(eval, root));
+        } else if (roots.size() == 1) {
+            results = new ArrayList<Elements>(1);
+            results.add(collect(eval, roots.get(0), executor));
+        } else {
+            List<Callable<Elements>> tasks = new ArrayList<Callable<Elements>>(roots.size());
+            for (Element root : roots)
+                tasks.add(new SubtreeTask(eval, root, root));
+            results = invokeAll(executor, tasks);
+        }
+        return results;
+    }
+
+    // counts elements only as far as the threshold, so cost is bounded for a large tree
+    private static boolean hasMoreElementsThan(List<Element> roots, int threshold) {
+        int count = 0;
+        Evaluator all = new Evaluator.AllElements();
+        for (Element root : roots) {
+            Iterator<Element> it = Collector.iterate(all, root);
+            while (it.hasNext()) {
+                it.next();
+                if (++count > threshold)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Elements> invokeAll(ExecutorService executor, List<Callable<Elements>> tasks) {
+        List<Future<Elements>> futures;
+        try {
+            futures = executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while collecting elements", e);
+        }
+
+        List<Elements> results = new ArrayList<Elements>(futures.size());
+        for (Future<Elements> future : futures) {
+            try {
+                results.add(future.get()); // invokeAll has waited for completion, so won't block
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while collecting elements", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw new IllegalStateException(cause);
+            }
+        }
+        return results;
+    }
+
+    private static class Unit {
+        final Element el;
+        final boolean subtree; // the element and its descendants; else just the element
+
+        Unit(Element el, boolean subtree) {
+            this.el = el;
+            this.subtree = subtree;
+        }
+    }
+
+    private static class SubtreeTask implements Callable<Elements> {
+        private final Evaluator eval;
+        private final Element root; // the query root, that the evaluator matches relative to
+        private final Element subtree;
+
+        SubtreeTask(Evaluator eval, Element root, Element subtree) {
+            this.eval = eval;
+            this.root = root;
+            this.subtree = subtree;
+        }
+
+        public Elements call() {
+            return Collector.collect(eval, root, subtree);
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package org.jsoup.select;
 
 import org.jsoup.helper.Validate;
+import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 /**
  * CSS-like element selector, that finds elements matching a query.
@@ -54,6 +60,11 @@ import java.util.LinkedHashSet;
  * @see Element#select(String)
  */
 public class Selector {
+    static final int maxCachedQueries = 512;
+    // compiled evaluators by query. evaluators are immutable, so are shared between threads
+    private static final ConcurrentHashMap<String, Evaluator> compiledQueries =
+            new ConcurrentHashMap<String, Evaluator>(64);
+
     private final Evaluator evaluator;
     private final Element root;
 
@@ -63,11 +74,36 @@ public class Selector {
         Validate.notEmpty(query);
         Validate.notNull(root);
 
-        this.evaluator = QueryParser.parse(query);
+        this.evaluator = compile(query);
 
         this.root = root;
     }
 
+    /**
+     * Compile a CSS query into an Evaluator, which can be used with {@link Collector#collect(Evaluator, Element)}.
+     * Compiled queries are cached, so a repeated query is parsed only once.
+     *
+     * @param query CSS selector
+     * @return compiled evaluator
+     * @throws SelectorParseException if the query is not valid
+     */
+    public static Evaluator compile(String query) {
+        Validate.notNull(query);
+        Evaluator evaluator = compiledQueries.get(query);
+        if (evaluator == null) {
+            evaluator = QueryParser.parse(query);
+            if (compiledQueries.size() >= maxCachedQueries) { // bounded: evict an arbitrary entry
+                Iterator<String> it = compiledQueries.keySet().iterator();
+                if (it.hasNext()) {
+                    it.next();
+                    it.remove();
+                }
+            }
+            compiledQueries.put(query, evaluator);
+        }
+        return evaluator;
+    }
+
     /**
      * Find elements matching selector.
      *
@@ -79,6 +115,55 @@ public class Selector {
         return new Selector(query, root).select();
     }
 
+    /**
+     * Find elements matching selector, evaluating the subtrees of a large tree in parallel on the executor. Results are
+     * in document order, as {@link #select(String, Element)}. A tree with fewer than ten thousand or so elements is
+     * searched on the calling thread. The tree must not be modified until the select completes.
+     *
+     * @param query    CSS selector
+     * @param root     root element to descend into
+     * @param executor executor to search subtrees on, e.g. a shared fixed thread pool or {@code ForkJoinPool}. Must not
+     *                 be one whose threads are all busy waiting for this call.
+     * @return matching elements, empty if not
+     */
+    public static Elements select(String query, Element root, ExecutorService executor) {
+        Selector selector = new Selector(query, root);
+        Elements indexed = selector.selectIndexed();
+        return indexed != null ? indexed : Collector.collect(selector.evaluator, root, executor);
+    }
+
+    /**
+     * Find the first element matching selector. The search stops at the first match.
+     *
+     * @param query CSS selector
+     * @param root  root element to descend into
+     * @return the first matching element, in document order; or null if none match
+     */
+    public static Element selectFirst(String query, Element root) {
+        Selector selector = new Selector(query, root);
+        Elements indexed = selector.selectIndexed();
+        if (indexed != null)
+            return indexed.isEmpty() ? null : indexed.get(0);
+        return Collector.findFirst(selector.evaluator, root);
+    }
+
+    /**
+     * Iterate the elements matching selector, without collecting them all first. The tree is searched as the iterator
+     * advances, so a large result set is not held in memory, and the search stops when iteration stops. The tree must
+     * not be modified during the iteration.
+     *
+     * @param query CSS selector
+     * @param root  root element to descend into
+     * @return iterator of matching elements, in document order
+     */
+    public static Iterator<Element> selectIterator(String query, Element root) {
+        Selector selector = new Selector(query, root);
+        Elements indexed = selector.selectIndexed();
+        if (indexed != null)
+            return indexed.iterator();
+        return Collector.iterate(selector.evaluator, root);
+    }
+
     /**
      * Find elements matching selector.
      *
@@ -97,8 +182,58 @@ public class Selector {
         return new Elements(elements);
     }
 
+    /**
+     * Find elements matching selector, searching the roots (or the subtrees of a single large root) in parallel on the
+     * executor. Results are in the order of the roots, then document order, as {@link #select(String, Iterable)}. Use
+     * to run one selector over a batch of documents. The trees must not be modified until the select completes.
+     *
+     * @param query    CSS selector
+     * @param roots    root elements to descend into
+     * @param executor executor to search roots on, e.g. a shared fixed thread pool or {@code ForkJoinPool}. Must not be
+     *                 one whose threads are all busy waiting for this call.
+     * @return matching elements, empty if not
+     */
+    public static Elements select(String query, Iterable<Element> roots, ExecutorService executor) {
+        Validate.notEmpty(query);
+        Validate.notNull(roots);
+        Validate.notNull(executor);
+        Evaluator evaluator = compile(query.trim());
+
+        // indexed documents are answered here, as an index isn't safe to build concurrently; the rest are collected
+        List<Elements> results = new ArrayList<Elements>();
+        List<Element> collectRoots = new ArrayList<Element>();
+        for (Element root : roots) {
+            Elements indexed = new Selector(query, root).selectIndexed();
+            results.add(indexed);
+            if (indexed == null)
+                collectRoots.add(root);
+        }
+        List<Elements> collected = ParallelCollector.collect(evaluator, collectRoots, executor);
+
+        LinkedHashSet<Element> elements = new LinkedHashSet<Element>();
+        int next = 0;
+        for (Elements result : results)
+            elements.addAll(result != null ? result : collected.get(next++));
+        return new Elements(elements);
+    }
+
     private Elements select() {
-        return Collector.collect(evaluator, root);
+        Elements indexed = selectIndexed();
+        return indexed != null ? indexed : Collector.collect(evaluator, root);
+    }
+
+    // answers simple lookups on an indexed document from its index; null if the query can't be
+    private Elements selectIndexed() {
+        if (root instanceof Document && ((Document) root).indexed()) {
+            Document doc = (Document) root;
+            if (evaluator instanceof Evaluator.Id)
+                return doc.getElementsById(((Evaluator.Id) evaluator).id);
+            else if (evaluator instanceof Evaluator.Tag)
+                return doc.getElementsByTag(((Evaluator.Tag) evaluator).tagName);
+            else if (evaluator instanceof Evaluator.Class)
+                return doc.getElementsByClass(((Evaluator.Class) evaluator).className);
+        }
+        return null;
     }
 
     // exclude set. package open so that Elements can implement .not() selector.
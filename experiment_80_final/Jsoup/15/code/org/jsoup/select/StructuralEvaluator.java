@@ -12,6 +12,11 @@ abstract class StructuralEvaluator extends Evaluator {
         public boolean matches(Element root, Element element) {
             return root == element;
         }
+
+        @Override
+        int cost() {
+            return 1;
+        }
     }
 
     static class Has extends StructuralEvaluator {
@@ -27,6 +32,11 @@ abstract class StructuralEvaluator extends Evaluator {
             return false;
         }
 
+        @Override
+        int cost() {
+            return 20 * evaluator.cost(); // evaluates each descendant
+        }
+
         public String toString() {
             return String.format(":has(%s)", evaluator);
         }
@@ -41,6 +51,11 @@ abstract class StructuralEvaluator extends Evaluator {
             return !evaluator.matches(root, node);
         }
 
+        @Override
+        int cost() {
+            return 1 + evaluator.cost();
+        }
+
         public String toString() {
             return String.format(":not%s", evaluator);
         }
@@ -64,6 +79,11 @@ abstract class StructuralEvaluator extends Evaluator {
             return false;
         }
 
+        @Override
+        int cost() {
+            return 10 * evaluator.cost(); // evaluates each ancestor
+        }
+
         public String toString() {
             return String.format(":parent%s", evaluator);
         }
@@ -81,6 +101,11 @@ abstract class StructuralEvaluator extends Evaluator {
             Element parent = element.parent();
             return parent != null && evaluator.matches(root, parent);
         }
+
+        @Override
+        int cost() {
+            return 1 + evaluator.cost();
+        }
     }
 
     static class PreviousSibling extends StructuralEvaluator {
@@ -103,6 +128,11 @@ abstract class StructuralEvaluator extends Evaluator {
             return false;
         }
 
+        @Override
+        int cost() {
+            return 5 * evaluator.cost(); // evaluates each preceding sibling
+        }
+
         public String toString() {
             return String.format(":prev*%s", evaluator);
         }
@@ -121,6 +151,11 @@ abstract class StructuralEvaluator extends Evaluator {
             return prev != null && evaluator.matches(root, prev);
         }
 
+        @Override
+        int cost() {
+            return 3 + evaluator.cost(); // finds the sibling by index
+        }
+
         public String toString() {
             return String.format(":prev%s", evaluator);
         }
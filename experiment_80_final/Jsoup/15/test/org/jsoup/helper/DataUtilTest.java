@@ -0,0 +1,132 @@
+package org.jsoup.helper;
+
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ Tests the charset prescan of the leading bytes, for a BOM or meta charset, and loading with it.
+ */
+public class DataUtilTest {
+    private static ByteBuffer bytes(String ascii) throws IOException {
+        return ByteBuffer.wrap(ascii.getBytes("US-ASCII"));
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(first, 0, first.length);
+        out.write(second, 0, second.length);
+        return out.toByteArray();
+    }
+
+    private static String filler(int length) {
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length)
+            sb.append("<p class=filler>Filler text</p>\n");
+        return sb.toString();
+    }
+
+    @Test public void utf8Bom() throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(concat(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF},
+                "<meta charset=ISO-8859-1>".getBytes("US-ASCII")));
+        assertEquals("UTF-8", DataUtil.prescanCharset(data));
+        assertEquals(3, data.position());
+    }
+
+    @Test public void utf16Boms() throws IOException {
+        ByteBuffer be = ByteBuffer.wrap(concat(new byte[]{(byte) 0xFE, (byte) 0xFF}, "<p>".getBytes("UTF-16BE")));
+        assertEquals("UTF-16BE", DataUtil.prescanCharset(be));
+        assertEquals(2, be.position());
+
+        ByteBuffer le = ByteBuffer.wrap(concat(new byte[]{(byte) 0xFF, (byte) 0xFE}, "<p>".getBytes("UTF-16LE")));
+        assertEquals("UTF-16LE", DataUtil.prescanCharset(le));
+        assertEquals(2, le.position());
+    }
+
+    @Test public void noBomLeavesPosition() throws IOException {
+        ByteBuffer data = bytes("<html><head><title>One</title></head><body>Two</body></html>");
+        assertNull(DataUtil.prescanCharset(data));
+        assertEquals(0, data.position());
+    }
+
+    @Test public void metaCharset() throws IOException {
+        assertEquals("ISO-8859-1", DataUtil.prescanCharset(bytes("<html><head><meta charset=\"ISO-8859-1\"><title>")));
+        assertEquals("GB2312", DataUtil.prescanCharset(bytes("<!doctype html><META CHARSET=gb2312 />")));
+        assertEquals("SHIFT_JIS", DataUtil.prescanCharset(bytes("<meta name=x charset='shift_jis'>")));
+        assertEquals("UTF-8", DataUtil.prescanCharset(bytes("<meta charset=utf-16>"))); // bytes read as ASCII
+        assertNull(DataUtil.prescanCharset(bytes("<metadata charset=ISO-8859-1>")));
+    }
+
+    @Test public void httpEquivContent() throws IOException {
+        assertEquals("SHIFT_JIS", DataUtil.prescanCharset(bytes(
+                "<meta http-equiv=\"Content-Type\" content=\"text/html; charset=Shift_JIS\">")));
+        assertEquals("EUC-JP", DataUtil.prescanCharset(bytes(
+                "<meta content='text/html;charset=euc-jp' http-equiv='content-type'>")));
+        assertNull(DataUtil.prescanCharset(bytes("<meta content=\"text/html; charset=Shift_JIS\">")));
+        assertNull(DataUtil.prescanCharset(bytes(
+                "<meta http-equiv=refresh content=\"text/html; charset=Shift_JIS\">")));
+        assertEquals("ISO-8859-1", DataUtil.prescanCharset(bytes(
+                "<meta content=\"text/html; charset=Shift_JIS\"><meta charset=ISO-8859-1>")));
+    }
+
+    @Test public void skipsComments() throws IOException {
+        assertEquals("UTF-8", DataUtil.prescanCharset(bytes("<!-- <meta charset=ISO-8859-1> --><meta charset=UTF-8>")));
+        assertEquals("UTF-8", DataUtil.prescanCharset(bytes("<!--><meta charset=UTF-8>")));
+        assertNull(DataUtil.prescanCharset(bytes("<!-- <meta charset=ISO-8859-1>")));
+    }
+
+    @Test public void skipsOtherTagsAttributes() throws IOException {
+        assertEquals("ISO-8859-1", DataUtil.prescanCharset(bytes(
+                "<div title='<meta charset=GB2312>'></div><meta charset=ISO-8859-1>")));
+    }
+
+    @Test public void unsupportedCharset() throws IOException {
+        assertNull(DataUtil.prescanCharset(bytes("<meta charset=x-no-such-charset>")));
+        assertNull(DataUtil.prescanCharset(bytes("<meta charset=\"!!\">")));
+        assertNull(DataUtil.prescanCharset(bytes("<meta charset=\"\">")));
+    }
+
+    @Test public void onlyLeadingBytesArePrescanned() throws IOException {
+        assertNull(DataUtil.prescanCharset(bytes(filler(6 * 1024) + "<meta charset=ISO-8859-1>")));
+    }
+
+    @Test public void metaPastPrescanIsReparsed() throws IOException {
+        byte[] html = ("<html><head>" + filler(6 * 1024) + "<meta charset=ISO-8859-1></head><body><p id=x>caf\u00e9")
+                .getBytes("ISO-8859-1");
+        long reparses = DataUtil.charsetReparseCount();
+        Document doc = DataUtil.load(new ByteArrayInputStream(html), null, "");
+        assertEquals("caf\u00e9", doc.select("#x").text());
+        assertEquals("ISO-8859-1", doc.outputSettings().charset().name());
+        assertEquals(reparses + 1, DataUtil.charsetReparseCount());
+    }
+
+    @Test public void metaInPrescanIsNotReparsed() throws IOException {
+        byte[] html = "<html><head><meta charset=ISO-8859-1></head><body><p id=x>caf\u00e9".getBytes("ISO-8859-1");
+        long reparses = DataUtil.charsetReparseCount();
+        Document doc = DataUtil.load(new ByteArrayInputStream(html), null, "");
+        assertEquals("caf\u00e9", doc.select("#x").text());
+        assertEquals("ISO-8859-1", doc.outputSettings().charset().name());
+        assertEquals(reparses, DataUtil.charsetReparseCount());
+    }
+
+    @Test public void loadSkipsBomWhenStreaming() throws IOException {
+        String html = "<div id=x>caf\u00e9 " + filler(8 * 1024) + "</div>";
+        byte[] utf8 = concat(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, html.getBytes("UTF-8"));
+        Document doc = DataUtil.load(new ByteArrayInputStream(utf8), null, "");
+        assertTrue(doc.select("#x").text().startsWith("caf\u00e9 Filler text"));
+        assertEquals(-1, doc.body().html().indexOf('\uFEFF'));
+        assertEquals("UTF-8", doc.outputSettings().charset().name());
+
+        byte[] utf16 = concat(new byte[]{(byte) 0xFF, (byte) 0xFE}, html.getBytes("UTF-16LE"));
+        doc = DataUtil.load(new ByteArrayInputStream(utf16), null, "");
+        assertTrue(doc.select("#x").text().startsWith("caf\u00e9 Filler text"));
+        assertEquals(-1, doc.body().html().indexOf('\uFEFF'));
+        assertEquals("UTF-16LE", doc.outputSettings().charset().name());
+    }
+}
@@ -0,0 +1,317 @@
+package org.jsoup.helper;
+
+import org.jsoup.Connection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ Tests the HttpClient against a local server: connection reuse, the per-host limit, response bodies, and retries.
+ */
+public class HttpClientTest {
+    private TestServer server;
+    private HttpClient client;
+
+    @Before public void start() throws IOException {
+        server = new TestServer();
+        client = new HttpClient();
+    }
+
+    @After public void stop() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    private static String ok(String body) {
+        return "HTTP/1.1 200 OK\r\nContent-Type: text/html\r\nContent-Length: " + body.length() + "\r\n\r\n" + body;
+    }
+
+    private String get(String path) throws IOException {
+        return client.connect(server.url(path)).execute().body();
+    }
+
+    @Test public void reusesKeepAliveConnection() throws IOException {
+        server.respond("/a", ok("One"));
+        assertEquals("One", get("/a"));
+        assertEquals("One", get("/a"));
+        assertEquals("One", get("/a"));
+        assertEquals(3, client.requestsExecuted());
+        assertEquals(1, client.connectionsOpened());
+        assertEquals(2, client.connectionsReused());
+        assertEquals(1, server.accepted.get());
+    }
+
+    @Test public void contentLengthBody() throws IOException {
+        server.respond("/a", "HTTP/1.1 200 OK\r\nContent-Type: text/html\r\nContent-Length: 5\r\n\r\nHello");
+        assertEquals("Hello", get("/a"));
+        assertEquals("Hello", get("/a"));
+        assertEquals(1, client.connectionsOpened());
+    }
+
+    @Test public void chunkedBody() throws IOException {
+        server.respond("/a", "HTTP/1.1 200 OK\r\nContent-Type: text/html\r\nTransfer-Encoding: chunked\r\n\r\n" +
+                "5\r\nHello\r\n7;ext=1\r\n, there\r\n1\r\n!\r\n0\r\nX-Trailer: 1\r\n\r\n");
+        assertEquals("Hello, there!", get("/a"));
+        assertEquals("Hello, there!", get("/a"));
+        assertEquals(1, client.connectionsOpened());
+        assertEquals(1, client.connectionsReused());
+    }
+
+    @Test public void closedConnectionIsNotReused() throws IOException {
+        server.respond("/close",
+                "HTTP/1.1 200 OK\r\nContent-Type: text/html\r\nContent-Length: 3\r\nConnection: close\r\n\r\nOne");
+        assertEquals("One", get("/close"));
+        assertEquals("One", get("/close"));
+        assertEquals(2, client.connectionsOpened());
+        assertEquals(0, client.connectionsReused());
+    }
+
+    @Test public void bodyToEndOfConnectionIsNotReused() throws IOException {
+        server.respond("/a", "HTTP/1.1 200 OK\r\nContent-Type: text/html\r\n\r\nOne");
+        server.closeAfter("/a");
+        assertEquals("One", get("/a"));
+        assertEquals("One", get("/a"));
+        assertEquals(2, client.connectionsOpened());
+    }
+
+    @Test public void noReuseWithoutIdleTimeout() throws IOException {
+        client.idleTimeout(0);
+        server.respond("/a", ok("One"));
+        assertEquals("One", get("/a"));
+        assertEquals("One", get("/a"));
+        assertEquals(2, client.connectionsOpened());
+        assertEquals(0, client.connectionsReused());
+    }
+
+    @Test public void redirectDrainsBodyAndReusesConnection() throws IOException {
+        server.respond("/from",
+                "HTTP/1.1 302 Found\r\nLocation: /to\r\nContent-Type: text/html\r\nContent-Length: 12\r\n\r\nMoved to /to");
+        server.respond("/to", ok("Arrived"));
+        Connection.Response res = client.connect(server.url("/from")).execute();
+        assertEquals("Arrived", res.body());
+        assertEquals(server.url("/to"), res.url().toExternalForm());
+        assertEquals(2, client.requestsExecuted());
+        assertEquals(1, client.connectionsOpened());
+        assertEquals(1, client.connectionsReused());
+        assertEquals("/from /to", server.paths());
+    }
+
+    @Test public void limitsConnectionsPerHost() throws Exception {
+        client.maxConnectionsPerHost(2);
+        server.respond("/slow", ok("Slow"));
+        server.delay = 200;
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 6; i++) {
+            Thread thread = new Thread() {
+                public void run() {
+                    try {
+                        assertEquals("Slow", client.connect(server.url("/slow")).timeout(10000).execute().body());
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(Collections.<Throwable>emptyList(), errors);
+        assertEquals(6, server.requests.get());
+        assertEquals(2, server.maxActive.get());
+        assertEquals(2, client.connectionsOpened());
+        assertEquals(4, client.connectionsReused());
+    }
+
+    @Test public void retriesGetOnStaleConnection() throws Exception {
+        server.respond("/a", ok("One"));
+        server.closeAfter("/a"); // without saying so, as a server closing an idle connection
+        assertEquals("One", get("/a"));
+        server.awaitClosed();
+        assertEquals("One", get("/a"));
+        assertEquals(2, client.requestsExecuted());
+        assertEquals(2, client.connectionsOpened());
+        assertEquals(0, client.connectionsReused());
+        assertEquals(2, server.requests.get());
+    }
+
+    @Test public void doesNotRetryPostOnStaleConnection() throws Exception {
+        server.respond("/a", ok("One"));
+        server.closeAfter("/a");
+        assertEquals("One", get("/a"));
+        server.awaitClosed();
+        try {
+            client.connect(server.url("/a")).data("k", "v").post();
+            fail("POST should not be retried");
+        } catch (IOException expected) {}
+        assertEquals(1, client.connectionsOpened());
+        assertEquals(1, server.requests.get());
+
+        assertEquals("One", get("/a")); // the stale connection was dropped
+        assertEquals(2, client.connectionsOpened());
+    }
+
+    @Test public void postsBody() throws IOException {
+        server.respond("/post", ok("Posted"));
+        Connection.Response res = client.connect(server.url("/post")).data("a", "1").data("b", "2 3")
+                .method(Connection.Method.POST).execute();
+        assertEquals("Posted", res.body());
+        assertEquals("a=1&b=2+3", server.lastBody);
+        assertEquals("Posted", client.connect(server.url("/post")).data("c", "4").post().text());
+        assertEquals(1, client.connectionsOpened());
+    }
+
+    @Test public void matchesCertificateHostNames() {
+        assertTrue(HttpClient.hostMatches("example.com", "example.com"));
+        assertTrue(HttpClient.hostMatches("example.com", "Example.COM"));
+        assertFalse(HttpClient.hostMatches("www.example.com", "example.com"));
+        assertTrue(HttpClient.hostMatches("www.example.com", "*.example.com"));
+        assertFalse(HttpClient.hostMatches("example.com", "*.example.com"));
+        assertFalse(HttpClient.hostMatches("a.b.example.com", "*.example.com"));
+        assertFalse(HttpClient.hostMatches("www.com", "*.com"));
+        assertFalse(HttpClient.hostMatches("wwwexample.com", "*.example.com"));
+    }
+
+    // a minimal HTTP/1.1 server, that answers each path with a canned response, and counts connections and requests
+    private static class TestServer {
+        private final ServerSocket serverSocket;
+        private final Map<String, String> responses = new ConcurrentHashMap<String, String>();
+        private final Set<String> closeAfter = Collections.synchronizedSet(new HashSet<String>());
+        private final List<String> paths = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch closed = new CountDownLatch(1);
+        final AtomicInteger accepted = new AtomicInteger();
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        volatile int delay = 0;
+        volatile String lastBody;
+
+        TestServer() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread acceptor = new Thread() {
+                public void run() {
+                    try {
+                        while (true) {
+                            final Socket socket = serverSocket.accept();
+                            accepted.incrementAndGet();
+                            new Thread() {
+                                public void run() {
+                                    serve(socket);
+                                }
+                            }.start();
+                        }
+                    } catch (IOException e) {
+                        // closed
+                    }
+                }
+            };
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        String url(String path) {
+            return "http://localhost:" + serverSocket.getLocalPort() + path;
+        }
+
+        void respond(String path, String response) {
+            responses.put(path, response);
+        }
+
+        void closeAfter(String path) {
+            closeAfter.add(path);
+        }
+
+        void awaitClosed() throws InterruptedException {
+            assertTrue(closed.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50); // for the close to reach the client
+        }
+
+        String paths() {
+            StringBuilder sb = new StringBuilder();
+            synchronized (paths) {
+                for (String path : paths)
+                    sb.append(sb.length() > 0 ? " " : "").append(path);
+            }
+            return sb.toString();
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+        }
+
+        private void serve(Socket socket) {
+            try {
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                OutputStream out = socket.getOutputStream();
+                String requestLine;
+                while ((requestLine = readLine(in)) != null) {
+                    int length = 0;
+                    String header;
+                    while ((header = readLine(in)) != null && header.length() > 0) {
+                        if (header.toLowerCase().startsWith("content-length:"))
+                            length = Integer.parseInt(header.substring(15).trim());
+                    }
+                    byte[] body = new byte[length];
+                    for (int read = 0; read < length; )
+                        read += in.read(body, read, length - read);
+                    lastBody = new String(body, "ISO-8859-1");
+
+                    String path = requestLine.split(" ")[1];
+                    paths.add(path);
+                    requests.incrementAndGet();
+                    int now = active.incrementAndGet();
+                    while (maxActive.get() < now)
+                        maxActive.compareAndSet(maxActive.get(), now);
+                    if (delay > 0)
+                        Thread.sleep(delay);
+                    String response = responses.get(path);
+                    active.decrementAndGet();
+
+                    out.write((response != null ? response : "HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n")
+                            .getBytes("ISO-8859-1"));
+                    out.flush();
+                    if (closeAfter.contains(path) || (response != null && response.contains("Connection: close"))) {
+                        socket.close();
+                        closed.countDown();
+                        return;
+                    }
+                }
+                socket.close();
+            } catch (Exception e) {
+                // connection dropped
+            }
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1 && b != '\n')
+                line.write(b);
+            if (b == -1 && line.size() == 0)
+                return null;
+            String s = line.toString("ISO-8859-1");
+            return s.endsWith("\r") ? s.substring(0, s.length() - 1) : s;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.jsoup.nodes;
+
+import org.jsoup.Jsoup;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ Tests that Attribute objects put into or taken from a set write their values through to it.
+ */
+public class AttributesTest {
+    @Test public void setValueOnPutAttribute() {
+        Attributes attributes = new Attributes();
+        Attribute attribute = new Attribute("Title", "One");
+        attributes.put(attribute);
+        assertEquals("One", attributes.get("title"));
+
+        attribute.setValue("Two");
+        assertEquals("Two", attributes.get("title"));
+        assertEquals("Two", attribute.getValue());
+        assertEquals(1, attributes.size());
+    }
+
+    @Test public void setValueOnPutAttributeReplacingKey() {
+        Attributes attributes = new Attributes();
+        attributes.put("a", "1");
+        attributes.put("b", "2");
+        Attribute attribute = new Attribute("a", "3");
+        attributes.put(attribute);
+        attribute.setValue("4");
+        assertEquals("4", attributes.get("a"));
+        assertEquals(" a=\"4\" b=\"2\"", attributes.html());
+    }
+
+    @Test public void setValueOnPutAttributeInIndexedDocument() {
+        Document doc = Jsoup.parse("<p>One</p>");
+        doc.indexed(true);
+        Attribute id = new Attribute("id", "a");
+        doc.select("p").first().attributes().put(id);
+        assertEquals(1, doc.select("#a").size());
+
+        id.setValue("b");
+        assertEquals(0, doc.select("#a").size());
+        assertEquals(1, doc.select("#b").size());
+    }
+
+    @Test public void setValueAfterRemoveIsNotWrittenBack() {
+        Attributes attributes = new Attributes();
+        Attribute attribute = new Attribute("a", "1");
+        attributes.put(attribute);
+        attributes.remove("a");
+        attribute.setValue("2");
+        assertFalse(attributes.hasKey("a"));
+        assertEquals("2", attribute.getValue());
+    }
+
+    @Test public void putAttributeIsViewOfLastSet() {
+        Attributes first = new Attributes();
+        Attributes second = new Attributes();
+        Attribute attribute = new Attribute("a", "1");
+        first.put(attribute);
+        second.put(attribute);
+        attribute.setValue("2");
+        assertEquals("1", first.get("a"));
+        assertEquals("2", second.get("a"));
+    }
+
+    @Test public void setValueOnListedAttribute() {
+        Attributes attributes = new Attributes();
+        attributes.put("a", "1");
+        Attribute listed = attributes.asList().get(0);
+        listed.setValue("2");
+        assertEquals("2", attributes.get("a"));
+
+        Attribute clone = listed.clone();
+        clone.setValue("3");
+        assertEquals("2", attributes.get("a"));
+    }
+
+    @Test public void addAllCopiesValues() {
+        Attributes incoming = new Attributes();
+        incoming.put("a", "1");
+        Attributes attributes = new Attributes();
+        attributes.addAll(incoming);
+        incoming.asList().get(0).setValue("2");
+        assertEquals("1", attributes.get("a"));
+        assertEquals("2", incoming.get("a"));
+    }
+
+    @Test public void putOnFrozenAttributesDoesNotBind() {
+        Document doc = Jsoup.parse("<p a=1>One</p>").freeze();
+        Attribute attribute = new Attribute("a", "2");
+        try {
+            doc.select("p").first().attributes().put(attribute);
+            fail();
+        } catch (UnsupportedOperationException expected) {}
+        attribute.setValue("3");
+        assertEquals("1", doc.select("p").first().attr("a"));
+    }
+}
@@ -0,0 +1,298 @@
+package org.jsoup.nodes;
+
+import org.jsoup.Jsoup;
+import org.jsoup.parser.Tag;
+import org.jsoup.select.Elements;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ Tests that an indexed document's lookups follow each way its tree and its elements' ids and classes can change.
+
+ @see Document#indexed(boolean) */
+public class ElementIndexTest {
+    private static Document indexed(String html) {
+        Document doc = Jsoup.parse(html);
+        doc.indexed(true);
+        return doc;
+    }
+
+    // the lookup results must match an unindexed copy of the document
+    private static void assertSameAsUnindexed(Document doc, String... queries) {
+        Document plain = doc.clone().indexed(false);
+        for (String query : queries) {
+            assertEquals(query, plain.select(query).outerHtml(), doc.select(query).outerHtml());
+        }
+    }
+
+    @Test public void attrThroughNode() {
+        Document doc = indexed("<p id=b class=c>One</p>");
+        assertEquals(1, doc.select("#b").size());
+        doc.select("p").first().attr("id", "z");
+        assertEquals(0, doc.select("#b").size());
+        assertEquals(1, doc.select("#z").size());
+        doc.select("p").first().removeAttr("class");
+        assertEquals(0, doc.select(".c").size());
+    }
+
+    @Test public void idPutOnAttributes() {
+        Document doc = indexed("<p id=b>One</p>");
+        assertEquals(1, doc.select("#b").size());
+        doc.select("p").first().attributes().put("id", "z");
+        assertEquals(0, doc.select("#b").size());
+        assertEquals(1, doc.select("#z").size());
+        assertNotNull(doc.getElementById("z"));
+    }
+
+    @Test public void classPutOnAttributes() {
+        Document doc = indexed("<p class=c>One</p>");
+        assertEquals(1, doc.select(".c").size());
+        doc.select("p").first().attributes().put("class", "d");
+        assertEquals(0, doc.select(".c").size());
+        assertEquals(1, doc.getElementsByClass("d").size());
+    }
+
+    @Test public void attributePutAndAddAll() {
+        Document doc = indexed("<p>One</p><p>Two</p>");
+        assertEquals(0, doc.select("#a").size());
+        doc.select("p").first().attributes().put(new Attribute("id", "a"));
+        assertEquals(1, doc.select("#a").size());
+
+        Attributes incoming = new Attributes();
+        incoming.put("class", "x y");
+        doc.select("p").last().attributes().addAll(incoming);
+        assertEquals(1, doc.select(".y").size());
+    }
+
+    @Test public void removeOnAttributes() {
+        Document doc = indexed("<p id=b class=c>One</p>");
+        assertEquals(1, doc.select("#b").size());
+        assertEquals(1, doc.select(".c").size());
+        Attributes attributes = doc.select("p").first().attributes();
+        attributes.remove("ID");
+        attributes.remove("class");
+        assertEquals(0, doc.select("#b").size());
+        assertEquals(0, doc.select(".c").size());
+    }
+
+    @Test public void setValueThroughAttributeView() {
+        Document doc = indexed("<p class=c>One</p>");
+        assertEquals(1, doc.select(".c").size());
+        for (Attribute attribute : doc.select("p").first().attributes()) {
+            if (attribute.getKey().equals("class"))
+                attribute.setValue("d");
+        }
+        assertEquals(0, doc.select(".c").size());
+        assertEquals(1, doc.select(".d").size());
+    }
+
+    @Test public void classMethods() {
+        Document doc = indexed("<p class=c>One</p><p>Two</p>");
+        Element first = doc.select("p").first();
+        assertEquals(1, doc.select(".c").size());
+
+        first.addClass("d");
+        assertEquals(1, doc.select(".d").size());
+        first.removeClass("c");
+        assertEquals(0, doc.select(".c").size());
+        first.toggleClass("e");
+        assertEquals(1, doc.select(".e").size());
+
+        Set<String> classes = new LinkedHashSet<String>();
+        classes.add("f");
+        doc.select("p").last().classNames(classes);
+        assertEquals(1, doc.select(".f").size());
+        assertSameAsUnindexed(doc, ".c", ".d", ".e", ".f", "p");
+    }
+
+    @Test public void tagName() {
+        Document doc = indexed("<p>One</p><span>Two</span>");
+        assertEquals(1, doc.select("span").size());
+        doc.select("span").first().tagName("em");
+        assertEquals(0, doc.select("span").size());
+        assertEquals(1, doc.getElementsByTag("em").size());
+    }
+
+    @Test public void treeChanges() {
+        Document doc = indexed("<div id=d><p class=c>One</p><p class=c>Two</p></div>");
+        assertEquals(2, doc.select(".c").size());
+
+        doc.body().appendElement("p").addClass("c");
+        assertEquals(3, doc.select(".c").size());
+        doc.select("p").first().remove();
+        assertEquals(2, doc.select(".c").size());
+        doc.select("p").first().before("<p class=c id=before>Zero</p>");
+        assertEquals(1, doc.select("#before").size());
+        doc.select("#before").first().after("<p id=after>Zero</p>");
+        assertEquals(1, doc.select("#after").size());
+        doc.select("#after").first().replaceWith(new Element(Tag.valueOf("span"), ""));
+        assertEquals(0, doc.select("#after").size());
+        assertEquals(1, doc.select("span").size());
+        doc.select("span").first().wrap("<div id=wrap></div>");
+        assertEquals(1, doc.select("#wrap").size());
+        doc.select("#wrap").first().unwrap();
+        assertEquals(0, doc.select("#wrap").size());
+        doc.select("#d").first().html("<p id=inner>In</p>");
+        assertEquals(1, doc.select("#inner").size());
+        assertSameAsUnindexed(doc, "p", ".c", "#d", "span", "div");
+        doc.body().empty();
+        assertEquals(0, doc.select("p").size());
+        assertEquals(0, doc.select("#d").size());
+    }
+
+    @Test public void addedSubtreeIsTracked() {
+        Document doc = indexed("<div></div>");
+        Element added = Jsoup.parse("<section><p id=a>One</p></section>").select("section").first();
+        doc.select("div").first().appendChild(added);
+        assertEquals(1, doc.select("#a").size());
+
+        added.select("p").first().attributes().put("id", "b");
+        assertEquals(0, doc.select("#a").size());
+        assertEquals(1, doc.select("#b").size());
+    }
+
+    @Test public void removedSubtreeIsNotTracked() {
+        Document doc = indexed("<div><p id=a>One</p></div>");
+        Element div = doc.select("div").first();
+        Element p = doc.select("p").first();
+        assertTrue(p.inIndexedTree());
+        div.remove();
+        assertFalse(div.inIndexedTree());
+        assertFalse(p.inIndexedTree());
+        assertEquals(0, doc.select("#a").size());
+    }
+
+    @Test public void emptiedChildrenAreNotTracked() {
+        Document doc = indexed("<div><p id=a>One <b>Two</b></p><p>Three</p></div>");
+        Element div = doc.select("div").first();
+        Element p = doc.select("p").first();
+        Element b = doc.select("b").first();
+        div.empty();
+        assertNull(p.parent());
+        assertFalse(p.inIndexedTree());
+        assertFalse(b.inIndexedTree());
+        assertEquals(0, doc.select("#a").size());
+
+        doc.freeze();
+        p.attr("id", "q"); // no longer in the frozen document
+        b.addClass("c");
+        assertEquals("q", p.id());
+        assertEquals(0, doc.select("#q, .c").size());
+    }
+
+    @Test public void onlyIndexedTreesAreTracked() {
+        Document plain = Jsoup.parse("<div><p>One</p></div>");
+        Document doc = indexed("<p>Two</p>");
+        Document frozen = Jsoup.parse("<p>Three</p>").freeze();
+        assertTrue(doc.select("p").first().inIndexedTree());
+        assertTrue(frozen.select("p").first().inIndexedTree());
+        assertFalse(plain.inIndexedTree());
+        assertFalse(plain.select("p").first().inIndexedTree());
+        assertFalse(Jsoup.parse("<p>Four</p>").select("p").first().inIndexedTree());
+
+        doc.indexed(false);
+        assertFalse(doc.select("p").first().inIndexedTree());
+    }
+
+    @Test public void movedBetweenDocuments() {
+        Document doc = indexed("<p id=a>One</p>");
+        Document other = Jsoup.parse("<div></div>");
+        Element p = doc.select("p").first();
+        other.select("div").first().appendChild(p);
+        assertFalse(p.inIndexedTree());
+        assertEquals(0, doc.select("#a").size());
+        assertEquals(1, other.select("#a").size());
+
+        doc.body().appendChild(p);
+        assertTrue(p.inIndexedTree());
+        assertEquals(1, doc.select("#a").size());
+    }
+
+    @Test public void cloneIsTrackedSeparately() {
+        Document doc = indexed("<p id=a>One</p>");
+        Document clone = doc.clone();
+        assertTrue(clone.indexed());
+        clone.select("p").first().attributes().put("id", "b");
+        assertEquals(1, clone.select("#b").size());
+        assertEquals(1, doc.select("#a").size());
+        assertEquals(0, doc.select("#b").size());
+
+        Element copy = doc.select("p").first().clone();
+        assertFalse(copy.inIndexedTree());
+    }
+
+    @Test public void textChangesDoNotNeedIndex() {
+        Document doc = indexed("<p id=a>One</p>");
+        TextNode text = (TextNode) doc.select("p").first().childNode(0);
+        assertTrue(text.inIndexedTree());
+        text.text("Two");
+        text.splitText(1);
+        assertEquals(1, doc.select("#a").size());
+        assertEquals("Two", doc.select("#a").text());
+    }
+
+    @Test public void frozenAttributesAreRejected() {
+        Document doc = Jsoup.parse("<p id=a class=c>One</p>").freeze();
+        Element p = doc.select("p").first();
+        try {
+            p.attributes().put("id", "b");
+            fail();
+        } catch (UnsupportedOperationException expected) {}
+        try {
+            p.attributes().asList().get(0).setValue("b");
+            fail();
+        } catch (UnsupportedOperationException expected) {}
+        try {
+            p.appendElement("span");
+            fail();
+        } catch (UnsupportedOperationException expected) {}
+        Elements found = doc.select("#a");
+        assertEquals(1, found.size());
+    }
+
+    @Test public void frozenIndexIsBuiltByConcurrentLookups() throws InterruptedException {
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < 2000; i++)
+            html.append("<p id=p").append(i).append(" class='c").append(i % 10).append(" all'>").append(i).append("</p>");
+        final Document doc = Jsoup.parse(html.toString()).freeze();
+        final String expected = doc.clone().indexed(false).select(".c3").outerHtml();
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread() {
+                public void run() {
+                    try {
+                        assertEquals(expected, doc.select(".c3").outerHtml());
+                        assertEquals(2000, doc.getElementsByClass("all").size());
+                        assertEquals("p1999", doc.getElementById("p1999").id());
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(Collections.<Throwable>emptyList(), errors);
+    }
+
+    @Test public void deepTreeIsNotWalkedWhenAnotherDocumentIsIndexed() {
+        indexed("<p>One</p>");
+        Jsoup.parse("<p>Two</p>").freeze();
+        StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < 20000; i++)
+            deep.append("<span>");
+        Document doc = Jsoup.parseBodyFragment(deep.toString());
+        assertFalse(doc.inIndexedTree());
+        assertEquals(20000, doc.select("span").size());
+    }
+}
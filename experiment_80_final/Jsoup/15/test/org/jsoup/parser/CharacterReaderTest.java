@@ -0,0 +1,113 @@
+package org.jsoup.parser;
+
+import org.jsoup.Jsoup;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/**
+ Tests that a CharacterReader streaming from a Reader reads as it does over the same input in a String, including
+ where a lookahead runs past its buffer.
+ */
+public class CharacterReaderTest {
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++)
+            sb.append(c);
+        return sb.toString();
+    }
+
+    private static void assertStreamsAsString(String html) {
+        assertEquals(Parser.parse(html, "").outerHtml(), Parser.parse(new StringReader(html), "").outerHtml());
+    }
+
+    @Test public void rewindsPastBufferAfterLongLetterRun() {
+        String html = "<p>&" + repeat('a', 40000) + ";</p>";
+        assertStreamsAsString(html);
+        assertEquals("&" + repeat('a', 40000) + ";", Parser.parse(new StringReader(html), "").select("p").text());
+    }
+
+    @Test public void rewindsPastBufferInAttribute() {
+        assertStreamsAsString("<a href='?x=1&" + repeat('b', 3 * CharacterReader.maxBufferLen) + "=2'>link</a>");
+    }
+
+    @Test public void rewindsPastBufferAfterLongDigitRun() {
+        assertStreamsAsString("<p>&#" + repeat('9', 2 * CharacterReader.maxBufferLen) + ";</p>");
+    }
+
+    @Test public void streamsManyCharacterReferences() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++)
+            sb.append("<p>&amp; &copy &nope; x</p>\n");
+        String html = sb.toString();
+        assertStreamsAsString(html);
+
+        CharacterReader reader = new CharacterReader(new StringReader(html));
+        reader.consumeTo('&');
+        reader.mark();
+        reader.unmark();
+        while (!reader.isEmpty()) {
+            reader.consumeTo('<');
+            reader.consume();
+        }
+        assertEquals(html.length(), reader.pos());
+    }
+
+    @Test public void findsEndTagPastBuffer() throws IOException {
+        // a start tag in a title is text if there is a </title> to end it, however far ahead that is
+        String text = "A <b> tag " + repeat('x', 80000);
+        String html = "<title>" + text + "</title><p>One</p>";
+        assertStreamsAsString(html);
+        assertEquals(text, Parser.parse(new StringReader(html), "").title());
+        assertEquals(text, Jsoup.parse(new ByteArrayInputStream(html.getBytes("UTF-8")), "UTF-8", "").title());
+        assertEquals(0, Parser.parse(new StringReader(html), "").select("b").size());
+
+        CharacterReader reader = new CharacterReader(new StringReader(html));
+        assertTrue(reader.containsIgnoreCase("</TITLE>"));
+        assertFalse(reader.containsIgnoreCase("</textarea>"));
+        assertEquals("<title>A <b", reader.consumeTo(' ') + reader.consume() + reader.consumeTo('>'));
+    }
+
+    @Test public void noEndTagIsNotFoundAtEndOfStream() {
+        assertStreamsAsString("<title>A <b> tag " + repeat('x', 80000));
+        assertStreamsAsString("<textarea>A <b> tag " + repeat('x', 80000) + "</title>");
+    }
+
+    @Test public void consumesLongestEntityName() {
+        // each name twice, the second found in the reader's cache
+        CharacterReader r = new CharacterReader("amp;amp;ampere;ampere;notit;notit;CounterClockwiseContourIntegral;x1;x1;");
+        for (int i = 0; i < 2; i++) {
+            assertEquals('&', r.consumeEntityName());
+            assertEquals(';', r.consume());
+        }
+        for (int i = 0; i < 2; i++) {
+            assertEquals('&', r.consumeEntityName());
+            assertEquals("ere;", r.consumeTo(';') + r.consume());
+        }
+        for (int i = 0; i < 2; i++) {
+            assertEquals('\u00AC', r.consumeEntityName());
+            assertEquals("it;", r.consumeTo(';') + r.consume());
+        }
+        assertEquals('\u2233', r.consumeEntityName());
+        assertEquals(';', r.consume());
+        for (int i = 0; i < 2; i++) {
+            int pos = r.pos();
+            assertEquals(-1, r.consumeEntityName());
+            assertEquals(pos, r.pos());
+            assertEquals("x1;", r.consumeTo(';') + r.consume());
+        }
+    }
+
+    @Test public void consumesAcrossBuffers() {
+        String text = repeat('x', 3 * CharacterReader.maxBufferLen + 17);
+        CharacterReader reader = new CharacterReader(new StringReader(text + "<y"));
+        assertEquals(text, reader.consumeTo('<'));
+        assertEquals('<', reader.consume());
+        assertEquals('y', reader.consume());
+        assertTrue(reader.isEmpty());
+    }
+}
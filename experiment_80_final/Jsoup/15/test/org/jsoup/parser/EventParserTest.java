@@ -0,0 +1,188 @@
+package org.jsoup.parser;
+
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Attributes;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ Tests the events reported by an event parse: balanced start and end tags, text and data, and stopping early.
+ */
+public class EventParserTest {
+    // records each event as a string, joining consecutive text or data calls
+    private static class Recorder extends ParseHandler {
+        final List<String> events = new ArrayList<String>();
+        final List<String> open = new ArrayList<String>();
+
+        @Override public void doctype(String name, String publicId, String systemId) {
+            events.add("doctype:" + name);
+        }
+
+        @Override public void startTag(String tagName, Attributes attributes) {
+            StringBuilder sb = new StringBuilder("<").append(tagName);
+            for (Attribute attribute : attributes)
+                sb.append(' ').append(attribute.getKey()).append('=').append(attribute.getValue());
+            events.add(sb.append('>').toString());
+            open.add(tagName);
+        }
+
+        @Override public void endTag(String tagName) {
+            events.add("</" + tagName + ">");
+            assertFalse("end tag with none open: " + tagName, open.isEmpty());
+            assertEquals("unbalanced end tag", open.remove(open.size() - 1), tagName);
+        }
+
+        @Override public void text(String text) {
+            append("text:", text);
+        }
+
+        @Override public void data(String data) {
+            append("data:", data);
+        }
+
+        @Override public void comment(String data) {
+            events.add("comment:" + data);
+        }
+
+        private void append(String type, String chars) {
+            int last = events.size() - 1;
+            if (last >= 0 && events.get(last).startsWith(type))
+                events.set(last, events.get(last) + chars);
+            else
+                events.add(type + chars);
+        }
+
+        String joined() {
+            StringBuilder sb = new StringBuilder();
+            for (String event : events)
+                sb.append(sb.length() > 0 ? " " : "").append(event);
+            return sb.toString();
+        }
+    }
+
+    private static String events(String html) {
+        Recorder recorder = new Recorder();
+        Parser.parseEvents(html, recorder);
+        assertEquals("balanced: " + html, 0, recorder.open.size());
+        return recorder.joined();
+    }
+
+    @Test public void balancedEvents() {
+        assertEquals("<div> <p> text:One </p> </div>", events("<div><p>One</p></div>"));
+        assertEquals("<div> <p> text:One </p> </div>", events("<div><p>One</div>"));
+        assertEquals("<div> <span> <b> text:One </b> </span> </div>", events("<div><span><b>One"));
+    }
+
+    @Test public void attributes() {
+        assertEquals("<a href=/x title=T> text:Link </a>", events("<a href='/x' TITLE=T>Link</a>"));
+        assertEquals("<p class=a&b> </p>", events("<p class='a&amp;b'></p>"));
+    }
+
+    @Test public void impliedEndTags() {
+        assertEquals("<p> text:One </p> <p> text:Two </p> <ul> <li> text:A </li> <li> text:B </li> </ul>",
+                events("<p>One<p>Two<ul><li>A<li>B</ul>"));
+        assertEquals("<dl> <dt> text:T </dt> <dd> text:D </dd> <dt> text:U </dt> </dl>",
+                events("<dl><dt>T<dd>D<dt>U</dl>"));
+        assertEquals("<select> <option> text:A </option> <option> text:B </option> </select>",
+                events("<select><option>A<option>B</select>"));
+        assertEquals("<table> <tr> <td> text:A </td> <td> text:B </td> </tr> <tr> <td> text:C </td> </tr> </table>",
+                events("<table><tr><td>A<td>B<tr><td>C</table>"));
+    }
+
+    @Test public void voidAndSelfClosingElements() {
+        assertEquals("text:One <br> </br> text:Two <img src=x> </img> <hr> </hr>", events("One<br>Two<img src=x><hr/>"));
+        assertEquals("<custom> </custom> text:Three", events("<custom/>Three"));
+    }
+
+    @Test public void strayEndTags() {
+        assertEquals("text:One", events("</b>One</div>"));
+        assertEquals("text:One <p> </p>", events("One</p>"));
+        assertEquals("<br> </br>", events("</br>"));
+        assertEquals("<table> <tr> <td> <b> text:x </b> </td> </tr> </table>", events("<table><tr><td><b>x</table>"));
+    }
+
+    @Test public void rawTextAndRcdata() {
+        assertEquals("<script> data:if (a < b && c) x = '</p>';  </script>",
+                events("<script>if (a < b && c) x = '</p>'; </script>"));
+        assertEquals("<style> data:p > b { color: red } </style>", events("<style>p > b { color: red }</style>"));
+        assertEquals("<title> text:A & <b>B </title>", events("<title>A &amp; <b>B</title>"));
+        assertEquals("<textarea> text:<x> &c </textarea>", events("<textarea>&lt;x> &c</textarea>"));
+        assertEquals("<xmp> text:<b>&amp;</b> </xmp>", events("<xmp><b>&amp;</b></xmp>"));
+    }
+
+    @Test public void doctypeAndComments() {
+        assertEquals("doctype:html comment: one  <p> text:Two comment:three </p>",
+                events("<!doctype html><!-- one --><p>Two<!--three-->"));
+    }
+
+    @Test public void stopEndsParse() {
+        Recorder recorder = new Recorder() {
+            @Override public void startTag(String tagName, Attributes attributes) {
+                super.startTag(tagName, attributes);
+                if (tagName.equals("b"))
+                    stop();
+            }
+        };
+        Parser.parseEvents("<div><p>One <b>Two</b> Three</p><p>Four</p></div>", recorder);
+        assertEquals("<div> <p> text:One  <b>", recorder.joined());
+    }
+
+    @Test public void stopFromEndTagDuringImpliedEnds() {
+        Recorder recorder = new Recorder() {
+            @Override public void endTag(String tagName) {
+                super.endTag(tagName);
+                if (tagName.equals("span"))
+                    stop();
+            }
+        };
+        Parser.parseEvents("<div><p><span>One<div>Two</div>", recorder);
+        assertEquals("<div> <p> <span> text:One </span>", recorder.joined());
+    }
+
+    @Test public void readerParseMatchesString() {
+        StringBuilder sb = new StringBuilder("<!doctype html><title>T &amp; t</title>");
+        for (int i = 0; i < 3000; i++)
+            sb.append("<p class=c").append(i).append(">Para &copy; ").append(i).append("<br><script>x < ").append(i)
+                    .append("</script><li>Item");
+        String html = sb.toString();
+
+        Recorder fromReader = new Recorder();
+        Parser.parseEvents(new StringReader(html), fromReader);
+        assertEquals(events(html), fromReader.joined());
+        assertEquals(0, fromReader.open.size());
+    }
+
+    @Test public void readerParseStopsReading() {
+        StringBuilder sb = new StringBuilder("<h1>Title</h1>");
+        for (int i = 0; i < 20000; i++)
+            sb.append("<p>Paragraph ").append(i).append("</p>");
+        final String html = sb.toString();
+        final int[] read = new int[1];
+        Reader reader = new StringReader(html) {
+            @Override public int read(char[] buf, int off, int len) throws IOException {
+                int count = super.read(buf, off, len);
+                if (count > 0)
+                    read[0] += count;
+                return count;
+            }
+        };
+
+        Recorder recorder = new Recorder() {
+            @Override public void endTag(String tagName) {
+                super.endTag(tagName);
+                if (tagName.equals("h1"))
+                    stop();
+            }
+        };
+        Parser.parseEvents(reader, recorder);
+        assertEquals("<h1> text:Title </h1>", recorder.joined());
+        assertTrue(read[0] < html.length() / 2);
+    }
+}
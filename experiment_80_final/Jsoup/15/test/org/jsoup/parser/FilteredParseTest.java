@@ -0,0 +1,95 @@
+package org.jsoup.parser;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.jsoup.select.QueryParser;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/**
+ Tests that a parse filtered by an Evaluator keeps the matching elements as a full parse has them, with their
+ ancestors, and discards everything else.
+ */
+public class FilteredParseTest {
+    private static String page(int rows) {
+        StringBuilder sb = new StringBuilder("<!doctype html><html><head><title>Results</title>" +
+                "<script>var x = '<table class=results>';</script><style>td { color: red }</style></head><body>" +
+                "<nav class=menu><ul><li><a href=/home>Home</a><li><a href=/about>About</a></ul></nav>" +
+                "<div id=main class=content>Intro text<section id=s1><h2>Found</h2><p class=note>Some <b>notes</b>" +
+                "<table class=results id=r1><tr><th>Name<th>Value");
+        for (int i = 0; i < rows; i++)
+            sb.append("<tr class=row><td><a href=/item/").append(i).append(">Item ").append(i).append("</a><td>")
+                    .append(i * 3).append(" &amp; more");
+        sb.append("</table><p class=other>Other <i>text</i></p></section>" +
+                "<div class=ads><img src=/ad.png><p>Advert</p></div>" +
+                "<table class=layout><tr><td>Layout<table class='results nested' id=r2><tr><td>Inner</table></table>" +
+                "</div><footer><p>Footer &copy; 2013</p></footer></body></html>");
+        return sb.toString();
+    }
+
+    private static void assertSameSelect(String html, String filter, String... queries) {
+        Document full = Parser.parse(html, "http://example.com/");
+        Document filtered = Parser.parse(html, "http://example.com/", QueryParser.parse(filter));
+        Document streamed = Parser.parse(new StringReader(html), "http://example.com/", QueryParser.parse(filter));
+        for (String query : queries) {
+            Elements expected = full.select(query);
+            assertTrue(query, expected.size() > 0);
+            assertEquals(query, expected.outerHtml(), filtered.select(query).outerHtml());
+            assertEquals(query, expected.outerHtml(), streamed.select(query).outerHtml());
+        }
+    }
+
+    @Test public void keepsMatchesAsFullParse() {
+        String html = page(20);
+        assertSameSelect(html, "table.results", "table.results", "table.results td", "#r2");
+        assertSameSelect(html, "a[href]", "a[href]", "a[href^=/item]");
+        assertSameSelect(html, "p.note", "p.note", "p.note b");
+        assertSameSelect(html, "title", "title");
+        assertSameSelect(html, "#s1", "#s1", "#s1 tr.row", "h2");
+    }
+
+    @Test public void keepsMatchesOfLargeStreamedInput() {
+        assertSameSelect(page(5000), "table.results", "table.results", "tr.row", "a[href=/item/4999]");
+    }
+
+    @Test public void keepsAncestors() {
+        Document doc = Parser.parse(page(3), "", QueryParser.parse("#r2"));
+        Element table = doc.select("#r2").first();
+        assertEquals("table.results.nested", cssPath(table));
+        assertEquals("td", table.parent().tagName());
+        assertEquals("layout", table.parent().parent().parent().parent().className());
+        Element main = doc.getElementById("main");
+        assertNotNull(main);
+        assertEquals("content", main.className());
+        assertSame(doc.body(), main.parent());
+        assertEquals("", main.ownText()); // ancestors are kept without their text
+        assertEquals("Inner", doc.body().text());
+    }
+
+    @Test public void discardsOtherSubtrees() {
+        Document doc = Parser.parse(page(3), "", QueryParser.parse("table#r1"));
+        assertEquals(0, doc.select("nav, footer, .ads, p, h2, table.layout, script, style, title").size());
+        assertEquals(1, doc.select("table").size());
+        assertFalse(doc.text().contains("Intro"));
+        assertFalse(doc.text().contains("Footer"));
+        assertEquals(doc.select("table#r1 *").size() + 6, doc.select("*").size()); // #root html body div section table
+    }
+
+    @Test public void noMatchesKeepsShell() {
+        Document doc = Parser.parse(page(3), "", QueryParser.parse("blink"));
+        assertNotNull(doc.body());
+        assertEquals(0, doc.body().childNodeSize());
+        assertEquals(3, doc.select("*").size()); // #root html body
+    }
+
+    private static String cssPath(Element el) {
+        StringBuilder sb = new StringBuilder(el.tagName());
+        for (String className : el.classNames())
+            sb.append('.').append(className);
+        return sb.toString();
+    }
+}
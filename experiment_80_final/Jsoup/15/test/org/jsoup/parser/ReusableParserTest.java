@@ -0,0 +1,105 @@
+package org.jsoup.parser;
+
+import org.jsoup.Jsoup;
+import org.jsoup.UncheckedIOException;
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.*;
+
+/**
+ Tests that a ReusableParser parses each input as a new parser does, however it was used before, and that resetting it
+ releases the last Document.
+ */
+public class ReusableParserTest {
+    private static final String[] inputs = {
+            "<!doctype html><html><head><title>One</title></head><body><p class=a>Two &amp; <b>three</b></p></body></html>",
+            "<div><p>Unclosed <i>tags<table><tr><td>Cell<td>Cell 2<tr><td>Row 2",
+            "<script>if (a < b) x = '</p>';</script><style>p > b {}</style><textarea>&lt;t> <b>x",
+            "<frameset><frame src=a></frameset>",
+            "",
+            "Just text &copy &nope; <br/> <svg><path d=M0/></svg> <!-- comment",
+            "<title>Title",
+            "<select><option>A<option>B<optgroup><option>C</select><form><input name=x></form><form>",
+    };
+
+    private static String large() {
+        StringBuilder sb = new StringBuilder("<ul>");
+        for (int i = 0; i < 5000; i++)
+            sb.append("<li id=l").append(i).append(">Item &amp; ").append(i).append("<a href=/").append(i).append(">link</a>");
+        return sb.append("</ul>").toString();
+    }
+
+    private static void assertParsesAsNew(ReusableParser parser, String html) {
+        String expected = Jsoup.parse(html, "http://example.com/").outerHtml();
+        assertEquals(html, expected, parser.parse(html, "http://example.com/").outerHtml());
+        assertEquals(html, expected, parser.parse(new StringReader(html), "http://example.com/").outerHtml());
+    }
+
+    // reads the html, then throws
+    private static Reader failing(final String html) {
+        return new StringReader(html) {
+            boolean done;
+
+            @Override public int read(char[] buf, int off, int len) throws IOException {
+                if (done)
+                    throw new IOException("Stream failed");
+                int count = super.read(buf, off, Math.min(len, 1024));
+                done = count < len;
+                return count;
+            }
+        };
+    }
+
+    @Test public void repeatedParsesMatchNewParser() {
+        ReusableParser parser = new ReusableParser();
+        for (int round = 0; round < 2; round++) {
+            for (String html : inputs)
+                assertParsesAsNew(parser, html);
+            assertParsesAsNew(parser, large());
+        }
+    }
+
+    @Test public void parsesAfterFailedInput() {
+        ReusableParser parser = new ReusableParser();
+        assertParsesAsNew(parser, inputs[1]);
+        for (String html : new String[]{"<div><p>Half <b>read", large().substring(0, 30000)}) {
+            try {
+                parser.parse(failing(html), "");
+                fail();
+            } catch (UncheckedIOException expected) {}
+            for (String input : inputs)
+                assertParsesAsNew(parser, input);
+        }
+    }
+
+    @Test public void threadParserIsReused() {
+        ReusableParser parser = ReusableParser.forCurrentThread();
+        assertSame(parser, ReusableParser.forCurrentThread());
+        assertParsesAsNew(parser, inputs[0]);
+    }
+
+    @Test public void resetReleasesDocument() throws InterruptedException {
+        ReusableParser parser = new ReusableParser();
+        WeakReference<Document> doc = new WeakReference<Document>(parser.parse(inputs[1], ""));
+        collectGarbage(doc);
+        assertNotNull("held by the parser until it is reset", doc.get());
+
+        parser.reset();
+        collectGarbage(doc);
+        assertNull(doc.get());
+        assertParsesAsNew(parser, inputs[0]);
+    }
+
+    private static void collectGarbage(WeakReference<?> ref) throws InterruptedException {
+        for (int i = 0; i < 20 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.jsoup.safety;
+
+import org.jsoup.Jsoup;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/**
+ Tests that cleaning straight to an output, as the input is parsed, writes the same HTML as cleaning a parsed document
+ with {@link Jsoup#clean(String, String, Whitelist)}, for each of the canned whitelists.
+ */
+public class StreamingCleanTest {
+    private static final String[] baseUris = {"", "http://example.com/dir/page.html"};
+
+    private static Whitelist[] whitelists() {
+        return new Whitelist[]{Whitelist.none(), Whitelist.simpleText(), Whitelist.basic(), Whitelist.basicWithImages(),
+                Whitelist.relaxed(), Whitelist.relaxed()
+                .addTags("span", "div")
+                .addAttributes(":all", "class", "id")
+                .addEnforcedAttribute("a", "rel", "nofollow")
+                .addEnforcedAttribute("p", "class", "para")};
+    }
+
+    private static String streamed(String html, String baseUri, Whitelist whitelist) throws IOException {
+        StringBuilder out = new StringBuilder();
+        Jsoup.clean(html, baseUri, whitelist, out);
+        return out.toString();
+    }
+
+    private static String streamedFromReader(String html, String baseUri, Whitelist whitelist) throws IOException {
+        StringBuilder out = new StringBuilder();
+        new Cleaner(whitelist).clean(new StringReader(html), baseUri, out);
+        return out.toString();
+    }
+
+    private static void assertCleansAsDocument(String html) throws IOException {
+        for (String baseUri : baseUris) {
+            Whitelist[] whitelists = whitelists();
+            for (int i = 0; i < whitelists.length; i++) {
+                String expected = Jsoup.clean(html, baseUri, whitelists[i]);
+                String message = "whitelist " + i + ", base '" + baseUri + "': " + html;
+                assertEquals(message, expected, streamed(html, baseUri, whitelists[i]));
+                assertEquals(message, expected, streamedFromReader(html, baseUri, whitelists[i]));
+            }
+        }
+    }
+
+    @Test public void text() throws IOException {
+        assertCleansAsDocument("");
+        assertCleansAsDocument("Hello");
+        assertCleansAsDocument("  Hello\n  there  ");
+        assertCleansAsDocument("Fish &amp; chips &lt;b&gt; &copy; &nbsp; &#x1F600; \u00e9 \"quoted\" 'single'");
+    }
+
+    @Test public void inlineElements() throws IOException {
+        assertCleansAsDocument("<b>Bold</b> <i>italic</i> <u>under</u> <em>em</em> <strong>strong</strong> <code>c</code>");
+        assertCleansAsDocument("Some <b>bold <i>and italic</i></b> text<br>and a <sub>sub</sub><sup>sup</sup>.");
+        assertCleansAsDocument("<span class=x>span</span> <font color=red>font</font> <small>s</small>");
+    }
+
+    @Test public void blockElements() throws IOException {
+        assertCleansAsDocument("<p>One</p><p>Two</p>");
+        assertCleansAsDocument("<div><p class=a id=b>One <b>two</b></p><blockquote cite='/q'>Quote</blockquote></div>");
+        assertCleansAsDocument("<h1>Title</h1><h2>Sub</h2><pre>  pre  formatted\n  text</pre><hr>");
+        assertCleansAsDocument("<ul><li>One</li><li>Two <b>b</b></li></ul><ol start=3><li>Three</li></ol>");
+        assertCleansAsDocument("<dl><dt>Term</dt><dd>Definition</dd></dl>");
+    }
+
+    @Test public void links() throws IOException {
+        assertCleansAsDocument("<a href='http://example.com/' title=Example>Ex</a>");
+        assertCleansAsDocument("<a href='/relative'>rel</a> <a href='page2.html'>rel2</a> <a href='?q=1&amp;b=2'>query</a>");
+        assertCleansAsDocument("<a href='javascript:alert(1)'>js</a> <a href='MAILTO:a@example.com'>mail</a>");
+        assertCleansAsDocument("<a href='https://example.com/' rel=me target=_top onclick='evil()'>attrs</a>");
+        assertCleansAsDocument("<a>no href</a> <a href=''>empty</a>");
+    }
+
+    @Test public void images() throws IOException {
+        assertCleansAsDocument("<img src='http://example.com/a.png' alt='An image' width=10 height=20 onerror=evil()>");
+        assertCleansAsDocument("<img src='/a.png'><img src='data:image/png;base64,AAA'><img src='javascript:x'>");
+    }
+
+    @Test public void tables() throws IOException {
+        assertCleansAsDocument("<table summary=s><tbody><tr><td colspan=2>One</td></tr><tr><th>H</th><td>Two</td></tr>" +
+                "</tbody></table>");
+        assertCleansAsDocument("<table><caption>C</caption><thead><tr><th>H</th></tr></thead><tbody><tr><td>D</td></tr>" +
+                "</tbody></table>");
+    }
+
+    @Test public void droppedContent() throws IOException {
+        assertCleansAsDocument("<script>alert(1)</script>Text<style>p { color: red }</style>");
+        assertCleansAsDocument("<p>One<!-- comment -->Two</p>");
+        assertCleansAsDocument("<div onclick=x><section><p>Kept</p></section><iframe src=x></iframe></div>");
+        assertCleansAsDocument("<form action=/x><input name=a value=b><textarea>text</textarea></form>");
+        assertCleansAsDocument("<object data=x><embed src=y></object><p>After</p>");
+    }
+
+    @Test public void unsafeAttributes() throws IOException {
+        assertCleansAsDocument("<p style='color: red' class=c id=i data-x=1 onmouseover=x>P</p>");
+        assertCleansAsDocument("<blockquote cite='javascript:x'>q</blockquote><q cite='http://ok/'>ok</q>");
+        assertCleansAsDocument("<p title='a &quot;quote&quot; &amp; &lt;tag&gt;'>Escaped</p>");
+    }
+
+    @Test public void nestedAndWhitespace() throws IOException {
+        assertCleansAsDocument("<div>\n  <p>\n    One\n  </p>\n  <p>Two</p>\n</div>\n");
+        assertCleansAsDocument("<div><div><div><p><b><i><a href='http://x/'>deep</a></i></b></p></div></div></div>");
+        assertCleansAsDocument("<p>One<br>Two<br/>Three</p><p></p><p> </p>");
+    }
+
+    @Test public void restructuredInputIsStillSafe() throws IOException {
+        // the tree builder fixes these up, which streaming does not; the output may differ, but must be as clean
+        String[] inputs = {"<b><i>misnested</b></i>", "<table><tr><td>no tbody</table>", "<table>foster<td>x</table>",
+                "<p><div>block in p</div></p>", "<a href='http://x/'><div>block in a</div></a>", "<li>no list",
+                "<p>unclosed <b>bold <a href=http://x/>link"};
+        Whitelist[] whitelists = whitelists();
+        for (String html : inputs) {
+            for (Whitelist whitelist : whitelists) {
+                String out = streamed(html, "", whitelist);
+                // cleaning the output again removes nothing
+                assertEquals(html, Jsoup.parseBodyFragment(out).body().html(), Jsoup.clean(out, whitelist));
+                assertEquals(html, Jsoup.parse(Jsoup.clean(html, whitelist)).text(), Jsoup.parse(out).text());
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.jsoup.select;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ Tests that a parallel select gives the same elements, in the same order, as a sequential select.
+ */
+public class ParallelCollectorTest {
+    private static ExecutorService executor;
+
+    @BeforeClass public static void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass public static void stopExecutor() {
+        executor.shutdown();
+    }
+
+    private static void assertSameAsSequential(Element root, String... queries) {
+        for (String query : queries) {
+            Elements sequential = Selector.select(query, root);
+            Elements parallel = Selector.select(query, root, executor);
+            assertEquals(query, sequential.size(), parallel.size());
+            for (int i = 0; i < sequential.size(); i++)
+                assertSame(query, sequential.get(i), parallel.get(i));
+        }
+    }
+
+    private static String chain(String tag, int depth) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++)
+            sb.append('<').append(tag).append(" class=d").append(i % 3).append('>');
+        return sb.toString();
+    }
+
+    @Test public void deepChain() {
+        Document doc = Jsoup.parseBodyFragment(chain("span", 20000) + "x");
+        assertSameAsSequential(doc, "span", ".d1", "span > span.d2", "body > span", "span span.d0");
+    }
+
+    @Test public void deepChainThenBranches() {
+        StringBuilder sb = new StringBuilder(chain("span", 1000));
+        for (int i = 0; i < 2000; i++)
+            sb.append("<p class=p").append(i % 7).append(">One <b>Two</b> <i>Three</i></p>");
+        Document doc = Jsoup.parseBodyFragment(sb.toString());
+        assertSameAsSequential(doc, "span", "p", ".p3", "p > b", "span p i", "b, i");
+    }
+
+    @Test public void branchesThenDeepChains() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3; i++)
+            sb.append("<div id=d").append(i).append('>').append(chain("abbr", 4000)).append("x</div>");
+        Document doc = Jsoup.parse(sb.toString());
+        assertSameAsSequential(doc, "abbr", "div", "#d1 abbr", ".d0", "div > abbr");
+    }
+
+    @Test public void broadTree() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append("<div class=row><ul>");
+            for (int j = 0; j < 10; j++)
+                sb.append("<li id=l").append(i).append('-').append(j).append("><a href=/").append(j).append(">x</a>");
+            sb.append("</ul></div>");
+        }
+        Document doc = Jsoup.parse(sb.toString());
+        assertSameAsSequential(doc, "li", "a[href]", "div.row > ul", "#l250-5", "li:eq(3)", "*");
+    }
+
+    @Test public void smallTreeStaysSequential() {
+        Document doc = Jsoup.parse("<div><p>One</p><p>Two</p></div>");
+        assertSameAsSequential(doc, "p", "div", "body > div > p");
+    }
+
+    @Test public void separateRoots() {
+        Document doc = Jsoup.parseBodyFragment(chain("span", 6000) + "x");
+        Document other = Jsoup.parse(chain("abbr", 8000) + "<span>y</span>");
+        List<Element> roots = new ArrayList<Element>();
+        roots.add(doc);
+        roots.add(other);
+        Elements parallel = Selector.select("span", roots, executor);
+        Elements sequential = new Elements();
+        sequential.addAll(Selector.select("span", doc));
+        sequential.addAll(Selector.select("span", other));
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++)
+            assertSame(sequential.get(i), parallel.get(i));
+    }
+}